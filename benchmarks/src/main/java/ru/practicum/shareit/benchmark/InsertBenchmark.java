@@ -0,0 +1,111 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замер вставки BOOKINGS бронирований одним вызовом saveAll во встроенную базу H2 (профиль test).
+ * При batchSize = 0 каждая строка уходит в базу отдельным запросом, как было с IDENTITY,
+ * при batchSize = 50 Hibernate группирует вставки в пакеты, а id берет из пула последовательности.
+ * Для замера на PostgreSQL адрес базы передается через -jvmArgsAppend -Dspring.datasource.url=...
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InsertBenchmark {
+    private static final int BOOKINGS = 10_000;
+    private static final int USERS = 10;
+
+    // Значение hibernate.jdbc.batch_size
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private List<Long> userIds;
+    private List<Long> itemIds;
+    private List<Booking> bookings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .profiles("test")
+                .properties("spring.main.web-application-type=none",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "logging.level.root=WARN")
+                .run();
+        bookingRepository = context.getBean(BookingRepository.class);
+        seed();
+    }
+
+    // Перед каждой вставкой таблица очищается, а бронирования создаются заново без id
+    @Setup(Level.Invocation)
+    public void prepareBookings() {
+        bookingRepository.deleteAllInBatch();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookings = new ArrayList<>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setItemId(itemIds.get(i % itemIds.size()));
+            booking.setBookerId(userIds.get((i + 1) % userIds.size()));
+            booking.setStart(start.plusDays(i));
+            booking.setEnd(start.plusDays(i).plusHours(12));
+            bookings.add(booking);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Booking> bookingRepositorySaveAll() {
+        return bookingRepository.saveAll(bookings);
+    }
+
+    // Метод для заполнения базы: пользователи и по одной вещи у каждого
+    private void seed() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+
+        List<User> newUsers = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("Пользователь " + i);
+            user.setEmail("user" + i + "@shareit.ru");
+            newUsers.add(user);
+        }
+        userIds = new ArrayList<>();
+        userRepository.saveAll(newUsers).forEach(user -> userIds.add(user.getId()));
+
+        List<Item> newItems = new ArrayList<>();
+        for (Long ownerId : userIds) {
+            Item item = new Item();
+            item.setName("Вещь");
+            item.setDescription("Описание вещи пользователя " + ownerId);
+            item.setAvailable(true);
+            item.setOwnerId(ownerId);
+            newItems.add(item);
+        }
+        itemIds = new ArrayList<>();
+        itemRepository.saveAll(newItems).forEach(item -> itemIds.add(item.getId()));
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingDto;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemFoundDto;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.item.comment.CommentMapper;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestDto;
+import ru.practicum.shareit.request.ItemRequestMapper;
+import ru.practicum.shareit.status.Status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры статических мапперов на списках из size объектов, без обращения к базе данных
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    // Количество объектов в преобразуемом списке
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private List<Booking> bookings;
+    private List<Item> items;
+    private List<CommentDto> comments;
+    private List<ItemRequest> requests;
+    private List<ItemDto> requestItems;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        bookings = new ArrayList<>();
+        items = new ArrayList<>();
+        comments = new ArrayList<>();
+        requests = new ArrayList<>();
+        for (long i = 1; i <= size; i++) {
+            Booking booking = new Booking();
+            booking.setId(i);
+            booking.setStart(now.minusDays(i));
+            booking.setEnd(now.plusDays(i));
+            booking.setItemId(i);
+            booking.setBookerId(i);
+            booking.setStatus(Status.APPROVED);
+            bookings.add(booking);
+
+            Item item = new Item();
+            item.setId(i);
+            item.setName("Вещь " + i);
+            item.setDescription("Описание вещи " + i);
+            item.setAvailable(true);
+            item.setOwnerId(i);
+            item.setRequestId(i);
+            items.add(item);
+
+            Comment comment = new Comment();
+            comment.setId(i);
+            comment.setText("Отзыв " + i);
+            comment.setItemId(i);
+            comment.setUserId(i);
+            comment.setCreated(now);
+            comments.add(CommentMapper.toCommentDto(comment, "Автор " + i));
+
+            ItemRequest request = new ItemRequest();
+            request.setId(i);
+            request.setDescription("Запрос " + i);
+            request.setRequesterId(i);
+            request.setCreated(now);
+            requests.add(request);
+        }
+        requestItems = ItemMapper.toItemsDto(items.subList(0, Math.min(size, 10)));
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingMapperToBookingDto() {
+        List<BookingDto> result = new ArrayList<>(size);
+        for (Booking booking : bookings) {
+            result.add(BookingMapper.toBookingDto(booking,
+                    new BookingDto.Item(booking.getItemId(), "Вещь"),
+                    new BookingDto.Booker(booking.getBookerId())));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ItemFoundDto> itemMapperToItemFoundDto() {
+        List<ItemFoundDto> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Booking booking = bookings.get(i);
+            result.add(ItemMapper.toItemFoundDto(items.get(i),
+                    new ItemFoundDto.LastBooking(booking),
+                    new ItemFoundDto.NextBooking(booking),
+                    comments.subList(i, Math.min(size, i + 3))));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ItemDto> itemMapperToItemsDto() {
+        return ItemMapper.toItemsDto(items);
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> itemRequestMapperToItemRequestDto() {
+        List<ItemRequestDto> result = new ArrayList<>(size);
+        for (ItemRequest request : requests) {
+            result.add(ItemRequestMapper.toItemRequestDto(request, requestItems));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,181 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingDto;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.phase.Phase;
+import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.status.Status;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры сборки списков в сервисах на наборе данных во встроенной базе H2 (профиль test).
+ * Каждый пользователь владеет ITEMS_PER_USER вещами, у каждой вещи BOOKINGS_PER_ITEM аренд
+ * от случайных пользователей и COMMENTS_PER_ITEM отзывов
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final int ITEMS_PER_USER = 5;
+    private static final int BOOKINGS_PER_ITEM = 4;
+    private static final int COMMENTS_PER_ITEM = 2;
+    private static final int PAGE_SIZE = 10;
+
+    // Количество пользователей в наборе данных
+    @Param({"1000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private ItemService itemService;
+    private ItemRequestService itemRequestService;
+    private List<Long> userIds;
+    private List<Long> itemIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .profiles("test")
+                .properties("spring.main.web-application-type=none",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        itemRequestService = context.getBean(ItemRequestService.class);
+        seed();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BookingDto>> bookingServiceFindAllForUser(BookingStateParam param) {
+        return bookingService.findAllForUser(randomUserId(), param.state, 0, PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BookingDto>> bookingServiceFindAllForOwner(BookingStateParam param) {
+        return bookingService.findAllForOwner(randomUserId(), param.state, 0, PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> itemServiceFindAllItemsByUserId() {
+        return itemService.findAllItemsByUserId(randomUserId(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> itemServiceFindByUserIdAndItemId() {
+        int index = ThreadLocalRandom.current().nextInt(itemIds.size());
+        // Владелец видит карточку вместе с ближайшими арендами
+        return itemService.findByUserIdAndItemId(userIds.get(index / ITEMS_PER_USER), itemIds.get(index));
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> itemRequestServiceGetAllRequests() {
+        return itemRequestService.getAllRequests(randomUserId(), 0, PAGE_SIZE);
+    }
+
+    private Long randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    // Метод для заполнения базы: пользователи, их вещи, аренды в прошлом, настоящем и будущем, отзывы
+    private void seed() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        BookingRepository bookingRepository = context.getBean(BookingRepository.class);
+        CommentRepository commentRepository = context.getBean(CommentRepository.class);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<User> newUsers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setName("Пользователь " + i);
+            user.setEmail("user" + i + "@shareit.ru");
+            newUsers.add(user);
+        }
+        userIds = new ArrayList<>();
+        userRepository.saveAll(newUsers).forEach(user -> userIds.add(user.getId()));
+
+        List<Item> newItems = new ArrayList<>();
+        for (Long ownerId : userIds) {
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                Item item = new Item();
+                item.setName("Вещь " + i);
+                item.setDescription("Описание вещи " + i + " пользователя " + ownerId);
+                item.setAvailable(true);
+                item.setOwnerId(ownerId);
+                newItems.add(item);
+            }
+        }
+        itemIds = new ArrayList<>();
+        itemRepository.saveAll(newItems).forEach(item -> itemIds.add(item.getId()));
+
+        List<Booking> newBookings = new ArrayList<>();
+        List<Comment> newComments = new ArrayList<>();
+        Status[] statuses = {Status.APPROVED, Status.APPROVED, Status.WAITING, Status.REJECTED};
+        for (Long itemId : itemIds) {
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                // Аренды идут без пересечений: от прошедших к будущим
+                LocalDateTime start = now.plusDays((i - BOOKINGS_PER_ITEM / 2) * 10L).plusHours(random.nextInt(24));
+                Booking booking = new Booking();
+                booking.setItemId(itemId);
+                booking.setBookerId(randomOf(userIds, random));
+                booking.setStart(start);
+                booking.setEnd(start.plusDays(1 + random.nextInt(5)));
+                booking.setStatus(statuses[random.nextInt(statuses.length)]);
+                booking.setPhase(Phase.at(booking.getStart(), booking.getEnd(), now));
+                newBookings.add(booking);
+            }
+            for (int i = 0; i < COMMENTS_PER_ITEM; i++) {
+                Comment comment = new Comment();
+                comment.setItemId(itemId);
+                comment.setUserId(randomOf(userIds, random));
+                comment.setText("Отзыв " + i);
+                comment.setCreated(now);
+                newComments.add(comment);
+            }
+        }
+        bookingRepository.saveAll(newBookings);
+        commentRepository.saveAll(newComments);
+    }
+
+    // Состояние бронирований в списке, перебирается только для замеров списков бронирований
+    @org.openjdk.jmh.annotations.State(Scope.Benchmark)
+    public static class BookingStateParam {
+        @Param({"ALL", "PAST", "FUTURE"})
+        public State state;
+    }
+
+    private static Long randomOf(List<Long> ids, Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+}
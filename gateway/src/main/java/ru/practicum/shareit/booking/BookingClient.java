@@ -3,59 +3,143 @@ package ru.practicum.shareit.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.NonBlockingExchange;
 
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    private final RestTemplate streamingRest;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl,
+                         RestTemplateBuilder builder,
+                         ClientHttpRequestFactory shareitServerRequestFactory,
+                         ClientHttpRequestFactory shareitServerStreamingRequestFactory,
+                         NonBlockingExchange nonBlockingExchange,
+                         GatewayResponseCache responseCache) {
         super(
+                serverUrl + API_PREFIX,
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareitServerRequestFactory)
+                        .build(),
+                nonBlockingExchange,
+                responseCache
         );
+        // ответы сервера с ошибками передаются клиенту как есть
+        this.streamingRest = builder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                .requestFactory(() -> shareitServerStreamingRequestFactory)
+                .errorHandler(new DefaultResponseErrorHandler() {
+                    @Override
+                    public boolean hasError(ClientHttpResponse response) {
+                        return false;
+                    }
+                })
+                .build();
     }
 
-    public ResponseEntity<Object> create(long userId, BookingDto requestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(long userId, BookingDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> setStatusBooking(long userId, Long bookingId, Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> createBatch(long userId, List<BookingDto> requestDtos) {
+        return post("/batch", userId, requestDtos);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> setStatusBooking(long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
         return patch("/" + bookingId + "?approved={approved}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findById(long userId, Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> setStatusBookings(long userId, BookingStatusBatchDto requestDto,
+                                                                       Boolean approved) {
+        Map<String, Object> parameters = Map.of(
+                "approved", approved
+        );
+        return patch("/status?approved={approved}", userId, parameters, requestDto);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> findById(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> findAllForUser(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public CompletableFuture<ResponseEntity<Object>> findAllForUser(long userId, BookingState state, Integer from, Integer size,
+                                                                    LocalDateTime cursorEnd, Long cursorId) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
+        ));
+        if (cursorEnd != null && cursorId != null) {
+            parameters.put("cursorEnd", cursorEnd);
+            parameters.put("cursorId", cursorId);
+            return get("?state={state}&from={from}&size={size}&cursorEnd={cursorEnd}&cursorId={cursorId}",
+                    userId, parameters);
+        }
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findAllForOwner(long userId, BookingState state, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllForOwner(long userId, BookingState state, Integer from, Integer size,
+                                                                     LocalDateTime cursorEnd, Long cursorId) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "state", state.name(),
+                "from", from,
+                "size", size
+        ));
+        if (cursorEnd != null && cursorId != null) {
+            parameters.put("cursorEnd", cursorEnd);
+            parameters.put("cursorId", cursorId);
+            return get("/owner?state={state}&from={from}&size={size}&cursorEnd={cursorEnd}&cursorId={cursorId}",
+                    userId, parameters);
+        }
+        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    }
+
+    public void exportForUser(long userId, BookingState state, String format, HttpServletResponse response) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
+                "format", format
+        );
+        stream(streamingRest, HttpMethod.GET, "/export?state={state}&format={format}", userId, parameters,
+                null, null, response);
+    }
+
+    public void exportForOwner(long userId, BookingState state, String format, HttpServletResponse response) {
+        Map<String, Object> parameters = Map.of(
+                "state", state.name(),
+                "format", format
+        );
+        stream(streamingRest, HttpMethod.GET, "/owner/export?state={state}&format={format}", userId, parameters,
+                null, null, response);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> findOwnerDashboard(long userId, Integer from, Integer size) {
+        Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return get("/owner/dashboard?from={from}&size={size}", userId, parameters);
     }
 
 }
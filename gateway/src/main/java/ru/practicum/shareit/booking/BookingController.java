@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -9,11 +10,18 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.HeaderKey;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -21,54 +29,119 @@ import java.util.Optional;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final String EXPORT_FORMATS = "ndjson|csv";
+
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> createBooking(@RequestHeader(HeaderKey.USER_KEY) long userId,
-                                                @RequestBody @Valid BookingDto bookingDto) {
+    public CompletableFuture<ResponseEntity<Object>> createBooking(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                                   @RequestBody @Valid BookingDto bookingDto) {
         log.info("Successful creating booking {}, userId={}", bookingDto, userId);
         return bookingClient.create(userId, bookingDto);
     }
 
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Object>> createBookings(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                                    @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE)
+                                                                    List<@Valid @NotNull BookingDto> bookingDtos) {
+        log.info("Successful creating batch of {} bookings, userId={}", bookingDtos.size(), userId);
+        return bookingClient.createBatch(userId, bookingDtos);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> setStatusBooking(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                                   @PathVariable Long bookingId,
-                                                   @RequestParam(value = "approved") Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> setStatusBooking(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                      @PathVariable Long bookingId,
+                                                                      @RequestParam(value = "approved") Boolean approved) {
         log.info("Successful set status for  bookingId={}, userId={}", bookingId, userId);
         return bookingClient.setStatusBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/status")
+    public CompletableFuture<ResponseEntity<Object>> setStatusBookings(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                                       @RequestBody @Valid BookingStatusBatchDto bookingStatusBatchDto,
+                                                                       @RequestParam(value = "approved") Boolean approved) {
+        log.info("Successful set status for bookings {} of itemId={}, userId={}",
+                bookingStatusBatchDto.getBookingIds(), bookingStatusBatchDto.getItemId(), userId);
+        return bookingClient.setStatusBookings(userId, bookingStatusBatchDto, approved);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> findById(@RequestHeader("X-Sharer-User-Id") long userId,
-                                           @PathVariable Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> findById(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                              @PathVariable Long bookingId) {
         log.info("Successful get bookingId={}, userId={}", bookingId, userId);
         return bookingClient.findById(userId, bookingId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAllForUser(@RequestHeader(HeaderKey.USER_KEY) long userId,
-                                                 @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllForUser(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                                    @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                    @RequestParam(name = "cursorEnd", required = false)
+                                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorEnd,
+                                                                    @Positive @RequestParam(name = "cursorId", required = false) Long cursorId) {
         Optional<BookingState> state = BookingState.from(stateParam);
         if (state.isEmpty()) {
-            return new ResponseEntity<>(Map.of("error", "Unknown state: " + stateParam), HttpStatus.INTERNAL_SERVER_ERROR);
+            return CompletableFuture.completedFuture(
+                    new ResponseEntity<>(Map.of("error", "Unknown state: " + stateParam), HttpStatus.INTERNAL_SERVER_ERROR));
         }
         log.info("Successful getting booking for user with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.findAllForUser(userId, state.get(), from, size);
+        return bookingClient.findAllForUser(userId, state.get(), from, size, cursorEnd, cursorId);
     }
 
-    @GetMapping("/owner")
-    public ResponseEntity<Object> findAllForOwner(@RequestHeader(HeaderKey.USER_KEY) long userId,
-                                                  @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                  @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                  @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    // Ответ сервера копируется в поток по мере чтения, null означает, что ответ уже записан
+    @GetMapping("/export")
+    public ResponseEntity<Object> exportForUser(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                @Pattern(regexp = EXPORT_FORMATS) @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                                                HttpServletResponse response) {
         Optional<BookingState> state = BookingState.from(stateParam);
         if (state.isEmpty()) {
             return new ResponseEntity<>(Map.of("error", "Unknown state: " + stateParam), HttpStatus.INTERNAL_SERVER_ERROR);
         }
+        log.info("Exporting bookings for user with state {}, userId={}, format={}", stateParam, userId, format);
+        bookingClient.exportForUser(userId, state.get(), format, response);
+        return null;
+    }
+
+    @GetMapping("/owner")
+    public CompletableFuture<ResponseEntity<Object>> findAllForOwner(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                                     @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                     @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                     @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                     @RequestParam(name = "cursorEnd", required = false)
+                                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorEnd,
+                                                                     @Positive @RequestParam(name = "cursorId", required = false) Long cursorId) {
+        Optional<BookingState> state = BookingState.from(stateParam);
+        if (state.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new ResponseEntity<>(Map.of("error", "Unknown state: " + stateParam), HttpStatus.INTERNAL_SERVER_ERROR));
+        }
         log.info("Successful getting booking for owner with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.findAllForOwner(userId, state.get(), from, size);
+        return bookingClient.findAllForOwner(userId, state.get(), from, size, cursorEnd, cursorId);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<Object> exportForOwner(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                 @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                 @Pattern(regexp = EXPORT_FORMATS) @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                                                 HttpServletResponse response) {
+        Optional<BookingState> state = BookingState.from(stateParam);
+        if (state.isEmpty()) {
+            return new ResponseEntity<>(Map.of("error", "Unknown state: " + stateParam), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        log.info("Exporting bookings for owner with state {}, userId={}, format={}", stateParam, userId, format);
+        bookingClient.exportForOwner(userId, state.get(), format, response);
+        return null;
+    }
+
+    @GetMapping("/owner/dashboard")
+    public CompletableFuture<ResponseEntity<Object>> findOwnerDashboard(@RequestHeader(HeaderKey.USER_KEY) long userId,
+                                                                        @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                        @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        log.info("Successful getting booking dashboard for owner, userId={}, from={}, size={}", userId, from, size);
+        return bookingClient.findOwnerDashboard(userId, from, size);
     }
 
 }
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Класс с набором бронирований для смены статуса: список id или все ожидающие бронирования вещи itemId
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatusBatchDto {
+    @Size(max = 1000)
+    private List<@NotNull Long> bookingIds;
+    @Positive
+    private Long itemId;
+}
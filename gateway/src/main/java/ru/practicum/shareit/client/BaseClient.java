@@ -1,94 +1,175 @@
 package ru.practicum.shareit.client;
 
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriTemplateHandler;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class BaseClient {
+    private static final List<String> PASSTHROUGH_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.CONTENT_DISPOSITION);
+
     protected final RestTemplate rest;
+    private final UriTemplateHandler uriTemplateHandler;
+    private final NonBlockingExchange nonBlockingExchange;
+    private final GatewayResponseCache responseCache;
 
-    public BaseClient(RestTemplate rest) {
+    public BaseClient(String baseUrl, RestTemplate rest, NonBlockingExchange nonBlockingExchange,
+                      GatewayResponseCache responseCache) {
         this.rest = rest;
+        this.uriTemplateHandler = new DefaultUriBuilderFactory(baseUrl);
+        this.nonBlockingExchange = nonBlockingExchange;
+        this.responseCache = responseCache;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, Map<String, Object> parameters) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, Map<String, Object> parameters) {
         return patch(path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        // обработчик URI у RestTemplate с метриками запоминает шаблон в ThreadLocal до выполнения запроса через RestTemplate,
+        // поэтому в неблокирующем режиме URI строится без него, иначе шаблоны копились бы в потоках Tomcat
+        UriTemplateHandler uriHandler = nonBlockingExchange.isEnabled() ? uriTemplateHandler : rest.getUriTemplateHandler();
+        URI uri = parameters != null
+                ? uriHandler.expand(path, parameters)
+                : uriHandler.expand(path);
 
-        ResponseEntity<Object> shareitServerResponse;
+        if (method == HttpMethod.GET) {
+            return responseCache.get(uri, userId, defaultHeaders(userId), headers -> send(method, uri, headers, body));
+        }
+        return send(method, uri, defaultHeaders(userId), body)
+                .whenComplete((response, e) -> responseCache.invalidate(uri));
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> send(HttpMethod method, URI uri, HttpHeaders headers, @Nullable T body) {
+        if (nonBlockingExchange.isEnabled()) {
+            return nonBlockingExchange.send(method, uri, headers, body);
+        }
+        return CompletableFuture.completedFuture(sendBlocking(method, uri, headers, body));
+    }
+
+    private <T> ResponseEntity<Object> sendBlocking(HttpMethod method, URI uri, HttpHeaders headers, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
+
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+            shareitServerResponse = rest.exchange(uri, method, requestEntity, byte[].class);
+        } catch (RestClientResponseException e) {
+            // включая UnknownHttpStatusCodeException для статусов вне HttpStatus
+            return prepareGatewayResponse(e.getRawStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        }
+        return prepareGatewayResponse(shareitServerResponse.getStatusCodeValue(),
+                shareitServerResponse.getHeaders(), shareitServerResponse.getBody());
+    }
+
+    // Метод для потоковой передачи тела запроса серверу и ответа сервера клиенту без буферизации в памяти шлюза.
+    // streamingRest должен использовать фабрику без буферизации тела и не выбрасывать исключения на статусы 4xx/5xx
+    protected void stream(RestTemplate streamingRest, HttpMethod method, String path, long userId,
+                          @Nullable Map<String, Object> parameters, @Nullable MediaType contentType,
+                          @Nullable InputStream body, HttpServletResponse response) {
+        URI uri = parameters != null
+                ? streamingRest.getUriTemplateHandler().expand(path, parameters)
+                : streamingRest.getUriTemplateHandler().expand(path);
+        try {
+            streamingRest.execute(uri, method, request -> {
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+                if (body != null) {
+                    request.getHeaders().setContentType(contentType);
+                    StreamUtils.copy(body, request.getBody());
+                }
+            }, serverResponse -> {
+                response.setStatus(serverResponse.getRawStatusCode());
+                PASSTHROUGH_HEADERS.forEach(name -> {
+                    String value = serverResponse.getHeaders().getFirst(name);
+                    if (value != null) {
+                        response.setHeader(name, value);
+                    }
+                });
+                // каждая прочитанная порция сразу отправляется клиенту, чтобы строки прогресса не задерживались
+                InputStream in = serverResponse.getBody();
+                OutputStream out = response.getOutputStream();
+                byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+                return null;
+            });
+        } finally {
+            if (method != HttpMethod.GET) {
+                responseCache.invalidate(uri);
             }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
         }
-        return prepareGatewayResponse(shareitServerResponse);
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -101,17 +182,35 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    // Метод для передачи ответа сервера клиенту как есть: статус, заголовки из PASSTHROUGH_HEADERS и байты тела
+    static ResponseEntity<Object> prepareGatewayResponse(int status, @Nullable HttpHeaders headers, @Nullable byte[] body) {
+        ResponseEntity.BodyBuilder responseBuilder = gatewayResponseBuilder(status, headers);
+
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
         }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        return responseBuilder.build();
+    }
+
+    // Метод для потоковой передачи тела ответа сервера: InputStreamResource пишется клиенту по мере чтения,
+    // без загрузки тела в память, поток закрывается после записи
+    static ResponseEntity<Object> prepareGatewayResponse(int status, @Nullable HttpHeaders headers, InputStream body) {
+        return gatewayResponseBuilder(status, headers).body(new InputStreamResource(body));
+    }
+
+    private static ResponseEntity.BodyBuilder gatewayResponseBuilder(int status, @Nullable HttpHeaders headers) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status);
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        if (headers != null) {
+            PASSTHROUGH_HEADERS.forEach(name -> {
+                String value = headers.getFirst(name);
+                if (value != null) {
+                    responseBuilder.header(name, value);
+                }
+            });
         }
 
-        return responseBuilder.build();
+        return responseBuilder;
     }
 }
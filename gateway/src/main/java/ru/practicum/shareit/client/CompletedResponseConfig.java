@@ -0,0 +1,43 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.DeferredResultMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конфигурация, ставящая CompletedResponseReturnValueHandler перед стандартными обработчиками ответов.
+ * Пользовательские обработчики из WebMvcConfigurer вызываются после стандартных, поэтому список меняется в адаптере
+ */
+@Configuration
+public class CompletedResponseConfig implements SmartInitializingSingleton {
+    private final RequestMappingHandlerAdapter handlerAdapter;
+
+    public CompletedResponseConfig(RequestMappingHandlerAdapter handlerAdapter) {
+        this.handlerAdapter = handlerAdapter;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(handlerAdapter.getReturnValueHandlers());
+        HandlerMethodReturnValueHandler asyncHandler = null;
+        HandlerMethodReturnValueHandler responseEntityHandler = null;
+        for (HandlerMethodReturnValueHandler handler : handlers) {
+            if (handler instanceof DeferredResultMethodReturnValueHandler) {
+                asyncHandler = handler;
+            } else if (handler instanceof HttpEntityMethodProcessor) {
+                responseEntityHandler = handler;
+            }
+        }
+        if (asyncHandler == null || responseEntityHandler == null) {
+            throw new IllegalStateException("Не найдены стандартные обработчики ответов Spring MVC");
+        }
+        handlers.add(0, new CompletedResponseReturnValueHandler(asyncHandler, responseEntityHandler));
+        handlerAdapter.setReturnValueHandlers(handlers);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Обработчик ответов контроллеров шлюза, возвращающих CompletableFuture.
+ * В блокирующем режиме и при ответе из кэша future уже завершен, поэтому ответ пишется сразу,
+ * без асинхронной обработки запроса в Servlet API. Незавершенные future передаются стандартному обработчику
+ */
+public class CompletedResponseReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandler asyncHandler;
+    private final HandlerMethodReturnValueHandler responseEntityHandler;
+
+    public CompletedResponseReturnValueHandler(HandlerMethodReturnValueHandler asyncHandler,
+                                               HandlerMethodReturnValueHandler responseEntityHandler) {
+        this.asyncHandler = asyncHandler;
+        this.responseEntityHandler = responseEntityHandler;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+        if (future != null && future.isDone() && !future.isCompletedExceptionally()
+                && future.join() instanceof ResponseEntity) {
+            responseEntityHandler.handleReturnValue(future.join(), new ResultMethodParameter(returnType),
+                    mavContainer, webRequest);
+            return;
+        }
+        asyncHandler.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+    }
+
+    // Тип результата future: для CompletableFuture<ResponseEntity<Object>> это ResponseEntity<Object>
+    private static class ResultMethodParameter extends MethodParameter {
+        private final ResolvableType resultType;
+
+        ResultMethodParameter(MethodParameter returnType) {
+            super(returnType);
+            this.resultType = ResolvableType.forMethodParameter(returnType).getGeneric();
+        }
+
+        private ResultMethodParameter(ResultMethodParameter original) {
+            super(original);
+            this.resultType = original.resultType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return resultType.toClass();
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return resultType.getType();
+        }
+
+        @Override
+        public ResultMethodParameter clone() {
+            return new ResultMethodParameter(this);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Разрешения на одновременные неблокирующие запросы к серверу ShareIt.
+ * Лимит и время ожидания те же, что у общего пула соединений (max-total и pool-timeout).
+ * Запрос без свободного разрешения ждет в очереди, поток при этом не блокируется
+ */
+class ConnectionPermits {
+    private final int max;
+    private final Executor timeoutExecutor;
+    private final AtomicInteger available;
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    ConnectionPermits(int max, Duration timeout) {
+        this.max = max;
+        this.timeoutExecutor = CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        this.available = new AtomicInteger(max);
+    }
+
+    // Метод возвращает future, который завершится после получения разрешения
+    // или с ResourceAccessException, как у пула соединений, если разрешение не освободилось за pool-timeout
+    CompletableFuture<Void> acquire() {
+        if (tryAcquire()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        // разрешение могло освободиться между неудачной попыткой и постановкой в очередь
+        handOver();
+        timeoutExecutor.execute(() -> {
+            if (waiter.completeExceptionally(new ResourceAccessException("Timeout waiting for connection from pool"))) {
+                waiters.remove(waiter);
+            }
+        });
+        return waiter;
+    }
+
+    void release() {
+        available.incrementAndGet();
+        handOver();
+    }
+
+    int getMax() {
+        return max;
+    }
+
+    int getLeased() {
+        return max - available.get();
+    }
+
+    int getPending() {
+        return waiters.size();
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = available.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    // Свободные разрешения передаются ожидающим запросам в порядке очереди
+    private void handOver() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null || !waiter.complete(null)) {
+                // очередь опустела или ожидание уже завершилось по таймауту
+                available.incrementAndGet();
+            }
+        }
+    }
+}
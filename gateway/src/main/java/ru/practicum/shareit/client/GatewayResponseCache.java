@@ -0,0 +1,180 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Класс-компонент кэша GET-ответов сервера ShareIt в шлюзе.
+ * Ключ - идентификатор пользователя, поколение раздела API и полный URI запроса.
+ * Ответ с ETag перепроверяется через If-None-Match, срок свежести берется из Cache-Control: max-age,
+ * ответы с no-store и ответы с потоковым телом не сохраняются.
+ * Запись (POST/PATCH/PUT/DELETE) через шлюз увеличивает поколение своего раздела API и зависящих от него разделов,
+ * после чего сохраненные ранее ответы этих разделов больше не находятся и вытесняются по размеру или сроку
+ */
+@Component
+public class GatewayResponseCache {
+    private static final String CACHE_NAME = "gatewayResponses";
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final Map<String, List<String>> INVALIDATED_ON_WRITE = Map.of(
+            "users", List.of("users", "items", "bookings", "requests"),
+            "items", List.of("items", "bookings", "requests"),
+            "bookings", List.of("bookings", "items"),
+            "requests", List.of("requests")
+    );
+
+    private final boolean enabled;
+    private final long defaultMaxAgeMillis;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Counter notModified;
+    private final Counter modified;
+
+    public GatewayResponseCache(@Value("${shareit-server.cache.enabled:true}") boolean enabled,
+                                @Value("${shareit-server.cache.maximum-size:10000}") long maximumSize,
+                                @Value("${shareit-server.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                @Value("${shareit-server.cache.default-max-age:0s}") Duration defaultMaxAge,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.defaultMaxAgeMillis = defaultMaxAge.toMillis();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.notModified = Counter.builder("cache.revalidations")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        this.modified = Counter.builder("cache.revalidations")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "modified")
+                .register(meterRegistry);
+    }
+
+    // Метод для выполнения GET-запроса через кэш: свежий ответ отдается без обращения к серверу,
+    // ответ с ETag перепроверяется условным запросом
+    public CompletableFuture<ResponseEntity<Object>> get(URI uri, @Nullable Long userId, HttpHeaders headers,
+                                                         Function<HttpHeaders, CompletableFuture<ResponseEntity<Object>>> exchange) {
+        if (!enabled) {
+            return exchange.apply(headers);
+        }
+
+        AtomicLong sectionGeneration = getGeneration(uri);
+        long generation = sectionGeneration.get();
+        String key = userId + " " + generation + " " + uri;
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.isFresh()) {
+            return CompletableFuture.completedFuture(cached.toResponse());
+        }
+        if (cached != null && cached.eTag != null) {
+            headers.setIfNoneMatch(cached.eTag);
+        }
+
+        CachedResponse revalidated = cached;
+        return exchange.apply(headers).thenApply(response -> {
+            if (revalidated != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                notModified.increment();
+                store(key, sectionGeneration, generation, revalidated.eTag, response.getHeaders(), revalidated.response);
+                return revalidated.toResponse();
+            }
+            if (revalidated != null) {
+                modified.increment();
+            }
+            if (response.getStatusCode() == HttpStatus.OK) {
+                store(key, sectionGeneration, generation, response.getHeaders().getETag(), response.getHeaders(), response);
+            }
+            return response;
+        });
+    }
+
+    // Метод для сброса сохраненных ответов разделов API, которые могли измениться после записи по данному URI
+    public void invalidate(URI uri) {
+        INVALIDATED_ON_WRITE.getOrDefault(getSection(uri), List.of())
+                .forEach(section -> generations.computeIfAbsent(section, s -> new AtomicLong()).incrementAndGet());
+    }
+
+    private void store(String key, AtomicLong sectionGeneration, long generation, @Nullable String eTag,
+                       HttpHeaders headers, ResponseEntity<Object> response) {
+        // тело, которое передается клиенту потоком, читается один раз и не сохраняется
+        if (response.getBody() != null && !(response.getBody() instanceof byte[])) {
+            return;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null && cacheControl.contains("no-store")) {
+            return;
+        }
+        long maxAgeMillis = getMaxAgeMillis(cacheControl);
+        if (eTag == null && maxAgeMillis == 0) {
+            return;
+        }
+        if (sectionGeneration.get() != generation) {
+            return;
+        }
+        cache.put(key, new CachedResponse(eTag, System.currentTimeMillis() + maxAgeMillis, response));
+    }
+
+    private long getMaxAgeMillis(@Nullable String cacheControl) {
+        if (cacheControl == null) {
+            return defaultMaxAgeMillis;
+        }
+        if (cacheControl.contains("no-cache")) {
+            return 0;
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        return matcher.find() ? Duration.ofSeconds(Long.parseLong(matcher.group(1))).toMillis() : defaultMaxAgeMillis;
+    }
+
+    private AtomicLong getGeneration(URI uri) {
+        return generations.computeIfAbsent(getSection(uri), s -> new AtomicLong());
+    }
+
+    private static String getSection(URI uri) {
+        String path = uri.getPath();
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private static class CachedResponse {
+        private final String eTag;
+        private final long freshUntil;
+        private final ResponseEntity<Object> response;
+
+        private CachedResponse(@Nullable String eTag, long freshUntil, ResponseEntity<Object> response) {
+            this.eTag = eTag;
+            this.freshUntil = freshUntil;
+            this.response = response;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() < freshUntil;
+        }
+
+        private ResponseEntity<Object> toResponse() {
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(response.getBody());
+        }
+    }
+}
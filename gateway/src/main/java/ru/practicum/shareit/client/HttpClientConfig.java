@@ -0,0 +1,90 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конфигурация общего пула HTTP-соединений, через который все клиенты обращаются к серверу ShareIt
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager shareitServerConnectionManager(
+            @Value("${shareit-server.http.max-total:200}") int maxTotal,
+            @Value("${shareit-server.http.max-per-route:200}") int maxPerRoute,
+            @Value("${shareit-server.http.validate-after-inactivity:2s}") Duration validateAfterInactivity) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient shareitServerHttpClient(
+            PoolingHttpClientConnectionManager shareitServerConnectionManager,
+            @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${shareit-server.http.read-timeout:30s}") Duration readTimeout,
+            @Value("${shareit-server.http.pool-timeout:5s}") Duration poolTimeout,
+            @Value("${shareit-server.http.idle-timeout:30s}") Duration idleTimeout) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .setConnectionRequestTimeout((int) poolTimeout.toMillis())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(shareitServerConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory shareitServerRequestFactory(CloseableHttpClient shareitServerHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(shareitServerHttpClient);
+    }
+
+    // Фабрика для потоковых запросов: тело запроса не буферизуется, а передается серверу по мере чтения
+    @Bean
+    public ClientHttpRequestFactory shareitServerStreamingRequestFactory(
+            CloseableHttpClient shareitServerHttpClient,
+            @Value("${shareit-server.http.streaming-read-timeout:2m}") Duration streamingReadTimeout) {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                new HttpComponentsClientHttpRequestFactory(shareitServerHttpClient);
+        requestFactory.setBufferRequestBody(false);
+        requestFactory.setReadTimeout((int) streamingReadTimeout.toMillis());
+        return requestFactory;
+    }
+
+    // Клиент неблокирующего режима shareit-server.non-blocking с тем же таймаутом соединения.
+    // Соединения JDK HttpClient живут вне пула Apache, поэтому лимит пула и его метрики для них ведет NonBlockingExchange
+    @Bean
+    public HttpClient shareitServerNonBlockingHttpClient(
+            @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    // Метрики заполненности пула: httpcomponents.httpclient.pool.*
+    @Bean
+    public MeterBinder shareitServerPoolMetrics(PoolingHttpClientConnectionManager shareitServerConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(shareitServerConnectionManager, "shareit-server");
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Класс-компонент для неблокирующего обращения к серверу ShareIt.
+ * Включается свойством shareit-server.non-blocking=true: поток Tomcat освобождается на время запроса к серверу,
+ * а ответ передается клиенту как есть, без разбора JSON.
+ * Тело ответа с известной длиной не больше shareit-server.http.max-buffered-body читается целиком и может попасть в кэш,
+ * остальные тела передаются клиенту потоком по мере поступления от сервера.
+ * Число одновременных запросов ограничено лимитом общего пула соединений, заполненность видна в метриках
+ * httpcomponents.httpclient.pool.* с тегом httpclient=shareit-server-non-blocking, время запросов - в http.client.requests
+ */
+@Component
+public class NonBlockingExchange {
+    private static final String METRICS_NAME = "shareit-server-non-blocking";
+
+    private final boolean enabled;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final long maxBufferedBody;
+    private final ConnectionPermits permits;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public NonBlockingExchange(@Value("${shareit-server.non-blocking:false}") boolean enabled,
+                               HttpClient shareitServerNonBlockingHttpClient,
+                               @Value("${shareit-server.http.read-timeout:30s}") Duration readTimeout,
+                               @Value("${shareit-server.http.pool-timeout:5s}") Duration poolTimeout,
+                               @Value("${shareit-server.http.max-total:200}") int maxTotal,
+                               @Value("${shareit-server.http.max-buffered-body:64KB}") DataSize maxBufferedBody,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.httpClient = shareitServerNonBlockingHttpClient;
+        this.readTimeout = readTimeout;
+        this.maxBufferedBody = maxBufferedBody.toBytes();
+        this.permits = new ConnectionPermits(maxTotal, poolTimeout);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        if (enabled) {
+            registerPoolMetrics();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                                          @Nullable Object body) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .method(method.name(), getBodyPublisher(body));
+        headers.forEach((name, values) -> values.forEach(value -> requestBuilder.header(name, value)));
+        HttpRequest request = requestBuilder.build();
+
+        return permits.acquire().thenCompose(permit -> {
+            long start = System.nanoTime();
+            return httpClient.sendAsync(request, this::getBodySubscriber)
+                    .whenComplete((response, e) -> {
+                        recordTime(method, uri, response, start);
+                        if (e != null) {
+                            permits.release();
+                        }
+                    })
+                    .thenApply(this::toGatewayResponse);
+        });
+    }
+
+    private HttpRequest.BodyPublisher getBodyPublisher(@Nullable Object body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать тело запроса", e);
+        }
+    }
+
+    // Способ чтения тела выбирается по заголовкам ответа: небольшое тело известной длины читается целиком,
+    // тело без Content-Length или больше лимита отдается как InputStream, который читается при записи ответа клиенту
+    private HttpResponse.BodySubscriber<Object> getBodySubscriber(HttpResponse.ResponseInfo responseInfo) {
+        long contentLength = responseInfo.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1);
+        boolean withoutBody = responseInfo.statusCode() == HttpStatus.NO_CONTENT.value()
+                || responseInfo.statusCode() == HttpStatus.NOT_MODIFIED.value();
+        if (withoutBody || (contentLength >= 0 && contentLength <= maxBufferedBody)) {
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> body);
+        }
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), body -> body);
+    }
+
+    // Соединение занято, пока тело ответа не прочитано: для потокового тела разрешение возвращается при закрытии потока
+    private ResponseEntity<Object> toGatewayResponse(HttpResponse<Object> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        if (response.body() instanceof InputStream) {
+            InputStream body = new ReleasingInputStream((InputStream) response.body(), permits::release);
+            return BaseClient.prepareGatewayResponse(response.statusCode(), headers, body);
+        }
+        permits.release();
+        return BaseClient.prepareGatewayResponse(response.statusCode(), headers, (byte[]) response.body());
+    }
+
+    // Те же теги, что у метрик запросов RestTemplate в блокирующем режиме
+    private void recordTime(HttpMethod method, URI uri, @Nullable HttpResponse<?> response, long start) {
+        Timer.builder("http.client.requests")
+                .tag("method", method.name())
+                .tag("uri", uri.getPath())
+                .tag("status", response != null ? String.valueOf(response.statusCode()) : "CLIENT_ERROR")
+                .tag("clientName", uri.getHost())
+                .tag("outcome", Outcome.forStatus(response != null ? response.statusCode() : 0).name())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Имена и теги как у метрик пула соединений блокирующего клиента
+    private void registerPoolMetrics() {
+        Gauge.builder("httpcomponents.httpclient.pool.total.max", permits, ConnectionPermits::getMax)
+                .tag("httpclient", METRICS_NAME)
+                .register(meterRegistry);
+        Gauge.builder("httpcomponents.httpclient.pool.total.connections", permits, ConnectionPermits::getLeased)
+                .tag("httpclient", METRICS_NAME)
+                .tag("state", "leased")
+                .register(meterRegistry);
+        Gauge.builder("httpcomponents.httpclient.pool.total.pending", permits, ConnectionPermits::getPending)
+                .tag("httpclient", METRICS_NAME)
+                .register(meterRegistry);
+    }
+
+    // Поток тела ответа, который однократно выполняет действие при закрытии
+    private static class ReleasingInputStream extends FilterInputStream {
+        private final Runnable onClose;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ReleasingInputStream(InputStream in, Runnable onClose) {
+            super(in);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    onClose.run();
+                }
+            }
+        }
+    }
+}
@@ -3,41 +3,77 @@ package ru.practicum.shareit.item;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.NonBlockingExchange;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final RestTemplate streamingRest;
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl,
+                      RestTemplateBuilder builder,
+                      ClientHttpRequestFactory shareitServerRequestFactory,
+                      ClientHttpRequestFactory shareitServerStreamingRequestFactory,
+                      NonBlockingExchange nonBlockingExchange,
+                      GatewayResponseCache responseCache) {
         super(
+                serverUrl + API_PREFIX,
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareitServerRequestFactory)
+                        .build(),
+                nonBlockingExchange,
+                responseCache
         );
+        // ответы сервера с ошибками передаются клиенту как есть
+        this.streamingRest = builder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                .requestFactory(() -> shareitServerStreamingRequestFactory)
+                .errorHandler(new DefaultResponseErrorHandler() {
+                    @Override
+                    public boolean hasError(ClientHttpResponse response) {
+                        return false;
+                    }
+                })
+                .build();
+    }
+
+    public void importItems(long userId, InputStream items, HttpServletResponse response) {
+        stream(streamingRest, HttpMethod.POST, "/import", userId, null, NDJSON, items, response);
     }
 
-    public ResponseEntity<Object> create(long userId, ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(long userId, ItemDto itemDto) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> update(long userId, ItemDto itemDto, Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> update(long userId, ItemDto itemDto, Long itemId) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> findById(long userId, Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> findById(long userId, Long itemId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> findAllByUserId(long userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByUserId(long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -45,7 +81,7 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findItemByText(long userId, String text, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findItemByText(long userId, String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -54,7 +90,15 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> addComment(long userId, Long itemId, CommentDto commentDto) {
+    public CompletableFuture<ResponseEntity<Object>> addComment(long userId, Long itemId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
+
+    public CompletableFuture<ResponseEntity<Object>> findComments(long userId, Long itemId, Long afterId, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "afterId", afterId,
+                "size", size
+        );
+        return get("/" + itemId + "/comment?afterId={afterId}&size={size}", userId, parameters);
+    }
 }
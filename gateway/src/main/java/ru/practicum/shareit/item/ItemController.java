@@ -8,10 +8,15 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.HeaderKey;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 @Controller
 @RequestMapping(path = "/items")
 @RequiredArgsConstructor
@@ -22,49 +27,66 @@ public class ItemController {
 
 
     @PostMapping
-    public ResponseEntity<Object> createNewItem(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                                @RequestBody @Valid ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> createNewItem(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                   @RequestBody @Valid ItemDto itemDto) {
         log.info("Successful creating item {}, userId={}", itemDto, userId);
         return itemClient.create(userId, itemDto);
     }
 
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public void importItems(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                            InputStream items,
+                            HttpServletResponse response) {
+        log.info("Importing items, userId={}", userId);
+        itemClient.importItems(userId, items, response);
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                             @RequestBody ItemDto itemDto,
-                                             @PathVariable("itemId") Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                @RequestBody ItemDto itemDto,
+                                                                @PathVariable("itemId") Long itemId) {
         log.info("Successful updating itemId {}, userId={}", itemId, userId);
         return itemClient.update(userId, itemDto, itemId);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> findItemByItemId(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                                   @PathVariable("itemId") Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> findItemByItemId(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                      @PathVariable("itemId") Long itemId) {
         log.info("Successful find item by itemId {}, userId={}", itemId, userId);
         return itemClient.findById(userId, itemId);
     }
 
     @GetMapping()
-    public ResponseEntity<Object> getAllItems(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getAllItems(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         log.info("Successful get all items by userId={}", userId);
         return itemClient.findAllByUserId(userId, from, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> findItemByText(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                                 @RequestParam(name = "text", defaultValue = "") String text,
-                                                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findItemByText(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                    @RequestParam(name = "text", defaultValue = "") String text,
+                                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         log.info("Successful find item by text={}, userId={}", text, userId);
         return itemClient.findItemByText(userId, text, from, size);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestBody @Valid CommentDto commentDto,
-                                                @RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                                @PathVariable("itemId") Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> createComment(@RequestBody @Valid CommentDto commentDto,
+                                                                   @RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                   @PathVariable("itemId") Long itemId) {
         log.info("Successful create comment for itemId={}, userId={}", itemId, userId);
         return itemClient.addComment(userId, itemId, commentDto);
     }
+
+    @GetMapping("/{itemId}/comment")
+    public CompletableFuture<ResponseEntity<Object>> findComments(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                  @PathVariable("itemId") Long itemId,
+                                                                  @PositiveOrZero @RequestParam(name = "afterId", defaultValue = "0") Long afterId,
+                                                                  @Positive @Max(100) @RequestParam(name = "size", defaultValue = "100") Integer size) {
+        log.info("Successful find comments for itemId={}, afterId={}, userId={}", itemId, afterId, userId);
+        return itemClient.findComments(userId, itemId, afterId, size);
+    }
 }
@@ -4,36 +4,46 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.NonBlockingExchange;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl,
+                             RestTemplateBuilder builder,
+                             ClientHttpRequestFactory shareitServerRequestFactory,
+                             NonBlockingExchange nonBlockingExchange,
+                             GatewayResponseCache responseCache) {
         super(
+                serverUrl + API_PREFIX,
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareitServerRequestFactory)
+                        .build(),
+                nonBlockingExchange,
+                responseCache
         );
     }
 
-    public ResponseEntity<Object> create(long userId, ItemRequestDto itemRequestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(long userId, ItemRequestDto itemRequestDto) {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> findAllByOwnerId(long userId) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByOwnerId(long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAll(long userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> getAll(long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -41,7 +51,7 @@ public class ItemRequestClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findById(long userId, Long requestId) {
+    public CompletableFuture<ResponseEntity<Object>> findById(long userId, Long requestId) {
         return get("/" + requestId, userId);
     }
 }
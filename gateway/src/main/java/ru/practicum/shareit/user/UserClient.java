@@ -4,42 +4,53 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
+import ru.practicum.shareit.client.NonBlockingExchange;
+
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl,
+                      RestTemplateBuilder builder,
+                      ClientHttpRequestFactory shareitServerRequestFactory,
+                      NonBlockingExchange nonBlockingExchange,
+                      GatewayResponseCache responseCache) {
         super(
+                serverUrl + API_PREFIX,
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> shareitServerRequestFactory)
+                        .build(),
+                nonBlockingExchange,
+                responseCache
         );
     }
 
-    public ResponseEntity<Object> create(UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> update(long userId, UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> update(long userId, UserDto userDto) {
         return patch("/" + userId, userDto);
     }
 
-    public ResponseEntity<Object> findById(long userId) {
+    public CompletableFuture<ResponseEntity<Object>> findById(long userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> deleteById(long userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteById(long userId) {
         return delete("/" + userId);
     }
 
-    public ResponseEntity<Object> getAll() {
+    public CompletableFuture<ResponseEntity<Object>> getAll() {
         return get("");
     }
 }
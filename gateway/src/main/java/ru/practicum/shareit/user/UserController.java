@@ -7,6 +7,8 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @Controller
 @RequestMapping("/users")
 @RequiredArgsConstructor
@@ -16,31 +18,31 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> createNewUser(@RequestBody @Validated UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> createNewUser(@RequestBody @Validated UserDto userDto) {
         log.info("Successful creating user={}", userDto);
         return userClient.create(userDto);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> updateUser(@PathVariable("id") Long userId, @RequestBody UserDto updatedUser) {
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@PathVariable("id") Long userId, @RequestBody UserDto updatedUser) {
         log.info("Successful updating userId={}", userId);
         return userClient.update(userId, updatedUser);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> findUserById(@PathVariable("id") Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> findUserById(@PathVariable("id") Long userId) {
         log.info("Successful find user by userId={}", userId);
         return userClient.findById(userId);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteUserById(@PathVariable("id") Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUserById(@PathVariable("id") Long userId) {
         log.info("Successful delete user by userId={}", userId);
         return userClient.deleteById(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         log.info("Successful get all users");
         return userClient.getAll();
     }
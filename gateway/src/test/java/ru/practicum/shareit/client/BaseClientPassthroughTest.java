@@ -0,0 +1,168 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withNoContent;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withRawStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Передача ответов сервера клиенту через шлюз как есть: статус, заголовки из списка PASSTHROUGH_HEADERS
+ * и байты тела без разбора JSON, в том числе для ответов с ошибкой и без тела
+ */
+class BaseClientPassthroughTest {
+    private static final String SERVER_URL = "http://localhost:9090";
+    private static final long USER_ID = 7L;
+    private static final byte[] JSON = "{\"name\":\"Дрель\",\"available\":true}".getBytes(StandardCharsets.UTF_8);
+
+    private MockRestServiceServer server;
+    private TestClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(SERVER_URL));
+        server = MockRestServiceServer.bindTo(rest).build();
+        GatewayResponseCache responseCache = new GatewayResponseCache(false, 0, Duration.ZERO, Duration.ZERO,
+                new SimpleMeterRegistry());
+        // неблокирующий режим выключен, запросы идут через RestTemplate
+        client = new TestClient(rest, mock(NonBlockingExchange.class), responseCache);
+    }
+
+    @Test
+    void successfulResponseIsPassedAsRawBytesWithAllowedHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"1-0\"");
+        headers.setCacheControl("max-age=60");
+        headers.set(HttpHeaders.LAST_MODIFIED, "Wed, 21 Oct 2015 07:28:00 GMT");
+        headers.set(HttpHeaders.SET_COOKIE, "session=1");
+        headers.set("X-Internal", "server");
+        server.expect(requestTo(SERVER_URL + "/items/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", String.valueOf(USER_ID)))
+                .andRespond(withSuccess(JSON, MediaType.APPLICATION_JSON).headers(headers));
+
+        ResponseEntity<Object> response = client.send(HttpMethod.GET, "/items/1", null);
+
+        server.verify();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(JSON);
+        assertThat(response.getHeaders().toSingleValueMap()).containsOnlyKeys(HttpHeaders.CONTENT_TYPE,
+                HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.LAST_MODIFIED);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1-0\"");
+    }
+
+    @Test
+    void requestBodyIsSentAsJson() {
+        server.expect(requestTo(SERVER_URL + "/items"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json("{\"name\":\"Дрель\"}"))
+                .andRespond(withSuccess(JSON, MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Object> response = client.send(HttpMethod.POST, "/items", Map.of("name", "Дрель"));
+
+        server.verify();
+        assertThat(response.getBody()).isEqualTo(JSON);
+    }
+
+    @Test
+    void errorResponseIsPassedWithItsBody() {
+        byte[] error = "{\"error\":\"Вещь не найдена\"}".getBytes(StandardCharsets.UTF_8);
+        server.expect(requestTo(SERVER_URL + "/items/2"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(error));
+
+        ResponseEntity<Object> response = client.send(HttpMethod.GET, "/items/2", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody()).isEqualTo(error);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void nonStandardStatusIsPassed() {
+        server.expect(requestTo(SERVER_URL + "/items/3"))
+                .andRespond(withRawStatus(599).contentType(MediaType.TEXT_PLAIN).body("сбой"));
+
+        ResponseEntity<Object> response = client.send(HttpMethod.GET, "/items/3", null);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(599);
+        assertThat(response.getBody()).isEqualTo("сбой".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void emptyResponsesHaveNoBody() {
+        server.expect(requestTo(SERVER_URL + "/users/1"))
+                .andRespond(withNoContent());
+        server.expect(requestTo(SERVER_URL + "/users/2"))
+                .andRespond(withSuccess());
+        HttpHeaders notModifiedHeaders = new HttpHeaders();
+        notModifiedHeaders.setETag("\"3-1\"");
+        server.expect(requestTo(SERVER_URL + "/users/3"))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(notModifiedHeaders));
+
+        ResponseEntity<Object> noContent = client.send(HttpMethod.DELETE, "/users/1", null);
+        ResponseEntity<Object> emptyOk = client.send(HttpMethod.GET, "/users/2", null);
+        ResponseEntity<Object> notModified = client.send(HttpMethod.GET, "/users/3", null);
+
+        server.verify();
+        assertThat(noContent.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(noContent.hasBody()).isFalse();
+        assertThat(emptyOk.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(emptyOk.hasBody()).isFalse();
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.hasBody()).isFalse();
+        assertThat(notModified.getHeaders().getETag()).isEqualTo("\"3-1\"");
+    }
+
+    @Test
+    void prepareGatewayResponseAcceptsMissingHeadersAndBody() {
+        ResponseEntity<Object> response = BaseClient.prepareGatewayResponse(201, null, new byte[0]);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getHeaders()).isEmpty();
+        assertThat(response.hasBody()).isFalse();
+    }
+
+    private static class TestClient extends BaseClient {
+        private TestClient(RestTemplate rest, NonBlockingExchange nonBlockingExchange,
+                           GatewayResponseCache responseCache) {
+            super(SERVER_URL, rest, nonBlockingExchange, responseCache);
+        }
+
+        private ResponseEntity<Object> send(HttpMethod method, String path, Object body) {
+            switch (method) {
+                case GET:
+                    return get(path, USER_ID).join();
+                case POST:
+                    return post(path, USER_ID, body).join();
+                case DELETE:
+                    return delete(path, USER_ID).join();
+                default:
+                    throw new IllegalArgumentException(method.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш GET-ответов шлюза с подменой обращения к серверу: свежие ответы, перепроверка по ETag
+ * и сброс зависящих разделов после записи, в том числе записи во время GET-запроса
+ */
+class GatewayResponseCacheTest {
+    private static final URI ITEM = URI.create("http://localhost:9090/items/1");
+    private static final long USER_ID = 1L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayResponseCache cache;
+    private FakeExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new GatewayResponseCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, meterRegistry);
+        exchange = new FakeExchange();
+    }
+
+    @Test
+    void freshResponseIsServedWithoutServer() {
+        exchange.respond(ok("v1", "max-age=60", null));
+
+        assertThat(get(ITEM).getBody()).isEqualTo("v1".getBytes());
+        assertThat(get(ITEM).getBody()).isEqualTo("v1".getBytes());
+
+        assertThat(exchange.requests).hasSize(1);
+    }
+
+    @Test
+    void responseWithETagIsRevalidated() {
+        exchange.respond(ok("v1", null, "\"1\""));
+        get(ITEM);
+
+        exchange.respond(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"1\"").build());
+        ResponseEntity<Object> response = get(ITEM);
+
+        assertThat(exchange.requests).hasSize(2);
+        assertThat(exchange.requests.get(1).getIfNoneMatch()).containsExactly("\"1\"");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("v1".getBytes());
+        assertThat(meterRegistry.get("cache.revalidations").tag("result", "not_modified").counter().count())
+                .isEqualTo(1);
+
+        // измененный ответ заменяет сохраненный
+        exchange.respond(ok("v2", null, "\"2\""));
+        assertThat(get(ITEM).getBody()).isEqualTo("v2".getBytes());
+        exchange.respond(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"2\"").build());
+        assertThat(get(ITEM).getBody()).isEqualTo("v2".getBytes());
+        assertThat(exchange.requests.get(3).getIfNoneMatch()).containsExactly("\"2\"");
+    }
+
+    @Test
+    void noStoreResponseIsNotCached() {
+        exchange.respond(ok("v1", "no-store, max-age=60", "\"1\""));
+        get(ITEM);
+        get(ITEM);
+
+        assertThat(exchange.requests).hasSize(2);
+        assertThat(exchange.requests.get(1).getIfNoneMatch()).isEmpty();
+    }
+
+    @Test
+    void writeInvalidatesDependentSections() {
+        exchange.respond(ok("v1", "max-age=60", null));
+        get(ITEM);
+
+        // запросы не зависят от вещей, их запись карточку вещи не сбрасывает
+        cache.invalidate(URI.create("http://localhost:9090/requests"));
+        get(ITEM);
+        assertThat(exchange.requests).hasSize(1);
+
+        // бронирование меняет карточку вещи
+        cache.invalidate(URI.create("http://localhost:9090/bookings/5?approved=true"));
+        get(ITEM);
+        assertThat(exchange.requests).hasSize(2);
+
+        cache.invalidate(URI.create("http://localhost:9090/users/1"));
+        get(ITEM);
+        assertThat(exchange.requests).hasSize(3);
+    }
+
+    @Test
+    void responseStartedBeforeWriteIsNotStored() {
+        CompletableFuture<ResponseEntity<Object>> pending = new CompletableFuture<>();
+        exchange.respond(pending);
+        CompletableFuture<ResponseEntity<Object>> racing = cache.get(ITEM, USER_ID, new HttpHeaders(), exchange);
+
+        // запись завершилась, пока GET-запрос ждал ответ сервера со старыми данными
+        cache.invalidate(URI.create("http://localhost:9090/items/1"));
+        pending.complete(ok("old", "max-age=60", "\"old\""));
+        assertThat(racing.join().getBody()).isEqualTo("old".getBytes());
+
+        exchange.respond(ok("new", "max-age=60", "\"new\""));
+        assertThat(get(ITEM).getBody()).isEqualTo("new".getBytes());
+        assertThat(exchange.requests).hasSize(2);
+        assertThat(exchange.requests.get(1).getIfNoneMatch()).isEmpty();
+    }
+
+    @Test
+    void responsesAreCachedPerUser() {
+        exchange.respond(ok("v1", "max-age=60", null));
+        cache.get(ITEM, 1L, new HttpHeaders(), exchange).join();
+        cache.get(ITEM, 2L, new HttpHeaders(), exchange).join();
+
+        assertThat(exchange.requests).hasSize(2);
+    }
+
+    private ResponseEntity<Object> get(URI uri) {
+        return cache.get(uri, USER_ID, new HttpHeaders(), exchange).join();
+    }
+
+    private static ResponseEntity<Object> ok(String body, String cacheControl, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cacheControl != null) {
+            headers.setCacheControl(cacheControl);
+        }
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        return new ResponseEntity<>(body.getBytes(), headers, HttpStatus.OK);
+    }
+
+    // Подмена обращения к серверу: запоминает заголовки запросов и отвечает заданным ответом
+    private static class FakeExchange implements Function<HttpHeaders, CompletableFuture<ResponseEntity<Object>>> {
+        private final List<HttpHeaders> requests = new ArrayList<>();
+        private CompletableFuture<ResponseEntity<Object>> response;
+
+        private void respond(ResponseEntity<Object> response) {
+            respond(CompletableFuture.completedFuture(response));
+        }
+
+        private void respond(CompletableFuture<ResponseEntity<Object>> response) {
+            this.response = response;
+        }
+
+        @Override
+        public CompletableFuture<ResponseEntity<Object>> apply(HttpHeaders headers) {
+            requests.add(HttpHeaders.readOnlyHttpHeaders(headers));
+            return response;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.client.AbstractClientHttpRequestFactoryWrapper;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.request.ItemRequestClient;
+import ru.practicum.shareit.user.UserClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Общий пул соединений с сервером ShareIt: все клиенты шлюза используют одну фабрику с настройками пула,
+ * соединения переиспользуются между запросами, а заполненность пула видна в метриках
+ */
+@SpringBootTest(properties = {
+        "shareit-server.http.max-total=7",
+        "shareit-server.http.max-per-route=3"
+})
+class HttpClientConfigTest {
+    private static HttpServer server;
+    private static final Set<Object> CONNECTIONS = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private PoolingHttpClientConnectionManager shareitServerConnectionManager;
+    @Autowired
+    private CloseableHttpClient shareitServerHttpClient;
+    @Autowired
+    private ClientHttpRequestFactory shareitServerRequestFactory;
+    @Autowired
+    private ClientHttpRequestFactory shareitServerStreamingRequestFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserClient userClient;
+    @Autowired
+    private ItemClient itemClient;
+    @Autowired
+    private BookingClient bookingClient;
+    @Autowired
+    private ItemRequestClient itemRequestClient;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            // соединение определяется по адресу клиента: новый порт означает новое TCP-соединение
+            CONNECTIONS.add(exchange.getRemoteAddress());
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void poolUsesConfiguredLimits() {
+        assertThat(shareitServerConnectionManager.getMaxTotal()).isEqualTo(7);
+        assertThat(shareitServerConnectionManager.getDefaultMaxPerRoute()).isEqualTo(3);
+    }
+
+    @Test
+    void allClientsShareOnePooledHttpClient() {
+        for (BaseClient client : List.of(userClient, itemClient, bookingClient, itemRequestClient)) {
+            assertThat(unwrap(client.rest.getRequestFactory())).isSameAs(shareitServerRequestFactory);
+        }
+        assertThat(((HttpComponentsClientHttpRequestFactory) shareitServerRequestFactory).getHttpClient())
+                .isSameAs(shareitServerHttpClient);
+        assertThat(((HttpComponentsClientHttpRequestFactory) shareitServerStreamingRequestFactory).getHttpClient())
+                .isSameAs(shareitServerHttpClient);
+    }
+
+    @Test
+    void connectionIsReusedBetweenRequests() {
+        RestTemplate rest = new RestTemplate(shareitServerRequestFactory);
+        String url = "http://localhost:" + server.getAddress().getPort() + "/users";
+        CONNECTIONS.clear();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rest.getForObject(url, String.class)).isEqualTo("{}");
+        }
+
+        assertThat(CONNECTIONS).hasSize(1);
+        PoolStats stats = shareitServerConnectionManager.getTotalStats();
+        assertThat(stats.getLeased()).isZero();
+        assertThat(stats.getAvailable()).isEqualTo(1);
+    }
+
+    @Test
+    void poolMetricsAreRegistered() {
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "shareit-server").gauge().value()).isEqualTo(7);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "shareit-server").tag("state", "leased").gauge().value()).isZero();
+    }
+
+    // RestTemplate с перехватчиками (например, метрик запросов) оборачивает фабрику, общей должна быть исходная
+    private static ClientHttpRequestFactory unwrap(ClientHttpRequestFactory requestFactory) {
+        while (requestFactory instanceof AbstractClientHttpRequestFactoryWrapper) {
+            requestFactory = (ClientHttpRequestFactory) ReflectionTestUtils.getField(requestFactory, "requestFactory");
+        }
+        return requestFactory;
+    }
+}
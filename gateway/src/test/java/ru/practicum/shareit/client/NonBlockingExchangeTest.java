@@ -0,0 +1,210 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ClassUtils;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Неблокирующий режим шлюза: большое тело ответа передается клиенту потоком, а не собирается в памяти,
+ * потоковые ответы не попадают в кэш, число одновременных запросов ограничено лимитом пула
+ * и видно в метриках, а шаблоны URI не копятся в потоках
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "shareit-server.non-blocking=true",
+        "shareit-server.http.max-total=4",
+        "shareit-server.http.max-buffered-body=1KB"
+})
+class NonBlockingExchangeTest {
+    private static final int FIRST_PART = 256 * 1024;
+    private static final int CHUNKS = 128;
+    private static final int CHUNK = 64 * 1024;
+    private static final int REQUESTS = 16;
+    private static final String LIST_ETAG = "\"list\"";
+
+    private static HttpServer server;
+    private static final CountDownLatch SEND_REST = new CountDownLatch(1);
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    private static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ItemClient itemClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/items", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/items")) {
+                sendList(exchange);
+            } else {
+                sendItem(exchange);
+            }
+        });
+        server.start();
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void largeBodyIsStreamedAndNotCached() throws Exception {
+        HttpResponse<InputStream> response = httpClient.send(request("/items"), HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("ETag")).hasValue(LIST_ETAG);
+
+        try (InputStream body = response.body()) {
+            // сервер отправит остаток тела только после того, как клиент получит начало:
+            // если шлюз собирает тело целиком, чтение начала не завершится.
+            // Последние байты начала могут остаться в буфере ответа Tomcat, поэтому ожидается только половина
+            byte[] firstPart = CompletableFuture.supplyAsync(() -> readNBytes(body, FIRST_PART / 2))
+                    .get(10, TimeUnit.SECONDS);
+            assertThat(firstPart).hasSize(FIRST_PART / 2);
+            SEND_REST.countDown();
+            assertThat(body.readAllBytes()).hasSize(FIRST_PART / 2 + CHUNKS * CHUNK);
+        }
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "shareit-server-non-blocking").tag("state", "leased").gauge().value()).isZero();
+
+        // прочитанный поток не сохраняется в кэше: повторный запрос идет без If-None-Match и получает тело целиком
+        HttpResponse<byte[]> repeated = httpClient.send(request("/items"), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(repeated.statusCode()).isEqualTo(200);
+        assertThat(repeated.body()).hasSize(FIRST_PART + CHUNKS * CHUNK);
+    }
+
+    @Test
+    void concurrentRequestsAreLimitedByPoolSize() throws Exception {
+        MAX_ACTIVE.set(0);
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(httpClient.sendAsync(request("/items/1"), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> future : futures) {
+            HttpResponse<String> response = future.get(30, TimeUnit.SECONDS);
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).isEqualTo("{\"id\":1}");
+        }
+
+        assertThat(MAX_ACTIVE.get()).isBetween(2, 4);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "shareit-server-non-blocking").gauge().value()).isEqualTo(4);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "shareit-server-non-blocking").tag("state", "leased").gauge().value()).isZero();
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.pending")
+                .tag("httpclient", "shareit-server-non-blocking").gauge().value()).isZero();
+        assertThat(meterRegistry.get("http.client.requests").tag("uri", "/items/1").tag("status", "200")
+                .timer().count()).isGreaterThanOrEqualTo(REQUESTS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void uriTemplatesDoNotAccumulateInThread() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            ResponseEntity<Object> response = itemClient.findById(1L, 1L).join();
+            assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        }
+
+        // шаблоны URI метрик RestTemplate хранятся в ThreadLocal класса, закрытого в пакете Spring Boot
+        Class<?> metricsInterceptor = ClassUtils.forName(
+                "org.springframework.boot.actuate.metrics.web.client.MetricsClientHttpRequestInterceptor", null);
+        ThreadLocal<Deque<String>> urlTemplate = (ThreadLocal<Deque<String>>) ReflectionTestUtils.getField(
+                metricsInterceptor, "urlTemplate");
+        assertThat(urlTemplate.get()).isEmpty();
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("X-Sharer-User-Id", "1")
+                .build();
+    }
+
+    private static byte[] readNBytes(InputStream in, int length) {
+        try {
+            return in.readNBytes(length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sendItem(HttpExchange exchange) throws IOException {
+        int active = ACTIVE.incrementAndGet();
+        MAX_ACTIVE.accumulateAndGet(active, Math::max);
+        try {
+            Thread.sleep(100);
+            byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", "\"1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ACTIVE.decrementAndGet();
+        }
+    }
+
+    // Тело без Content-Length: начало, затем остаток после сигнала от теста
+    private static void sendList(HttpExchange exchange) throws IOException {
+        if (LIST_ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("ETag", LIST_ETAG);
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(new byte[FIRST_PART]);
+            out.flush();
+            if (!SEND_REST.await(10, TimeUnit.SECONDS)) {
+                return;
+            }
+            for (int i = 0; i < CHUNKS; i++) {
+                out.write(new byte[CHUNK]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Подача запросов к шлюзу с постоянной частотой rps по открытой модели: момент отправки каждого запроса
+ * назначается заранее, а задержка отсчитывается от назначенного момента, поэтому очередь при замедлении
+ * системы попадает в гистограмму. Задержки копятся отдельно по каждому эндпоинту и состоянию бронирований
+ */
+public class LoadDriver {
+    private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+    private static final String[] SEARCH_TEXTS = {"Вещь", "инструмент", "номер 1", "отсутствует"};
+    private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final LoadTestConfig config;
+    private final HttpClient httpClient;
+    private final List<Long> userIds;
+    private final String baseUrl;
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    LoadDriver(LoadTestConfig config, HttpClient httpClient, List<Long> userIds) {
+        this.config = config;
+        this.httpClient = httpClient;
+        this.userIds = userIds;
+        this.baseUrl = "http://localhost:" + config.gatewayPort;
+    }
+
+    Map<String, Histogram> run() throws InterruptedException {
+        drive(config.warmupSeconds);
+        // Результаты прогрева отбрасываются
+        recorders.values().forEach(Recorder::getIntervalHistogram);
+        errors.clear();
+        drive(config.durationSeconds);
+
+        Map<String, Histogram> histograms = new TreeMap<>();
+        recorders.forEach((key, recorder) -> histograms.put(key, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    long getErrors(String key) {
+        AtomicLong count = errors.get(key);
+        return count == null ? 0 : count.get();
+    }
+
+    private void drive(int seconds) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rps;
+        long total = (long) config.rps * seconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            send(intended);
+        }
+        // Ждем ответы на все отправленные запросы, чтобы медленные ответы тоже попали в гистограмму
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    // Метод для отправки одного запроса из смеси: /bookings 30%, /bookings/owner 30%, /items 20%,
+    // /items/search 10%, /requests/all 10%
+    private void send(long intended) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = userIds.get(random.nextInt(userIds.size()));
+        int choice = random.nextInt(100);
+        String key;
+        String path;
+        if (choice < 60) {
+            String state = STATES[random.nextInt(STATES.length)];
+            String endpoint = choice < 30 ? "/bookings" : "/bookings/owner";
+            key = "GET " + endpoint + " state=" + state;
+            path = endpoint + "?state=" + state + "&from=0&size=10";
+        } else if (choice < 80) {
+            key = "GET /items";
+            path = "/items?from=0&size=10";
+        } else if (choice < 90) {
+            key = "GET /items/search";
+            path = "/items/search?from=0&size=10&text="
+                    + URLEncoder.encode(SEARCH_TEXTS[random.nextInt(SEARCH_TEXTS.length)], StandardCharsets.UTF_8);
+        } else {
+            key = "GET /requests/all";
+            path = "/requests/all?from=0&size=10";
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .build();
+        Recorder recorder = recorders.computeIfAbsent(key, k -> new Recorder(HIGHEST_LATENCY_NANOS, 3));
+        inFlight.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    recorder.recordValue(Math.min(System.nanoTime() - intended, HIGHEST_LATENCY_NANOS));
+                    inFlight.decrementAndGet();
+                    if (e != null || response.statusCode() != 200) {
+                        errors.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+                    }
+                });
+    }
+
+    // Метод для вывода отчета в консоль и в CSV-файл, задержки в миллисекундах
+    void report(Map<String, Histogram> histograms) throws IOException {
+        String header = String.format("%-42s %8s %7s %9s %9s %9s %9s",
+                "endpoint", "count", "errors", "p50", "p99", "p999", "max");
+        System.out.println(header);
+        Path reportPath = Path.of(config.report);
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8))) {
+            csv.println("endpoint,count,errors,p50_ms,p99_ms,p999_ms,max_ms");
+            histograms.forEach((key, histogram) -> {
+                double p50 = toMillis(histogram.getValueAtPercentile(50));
+                double p99 = toMillis(histogram.getValueAtPercentile(99));
+                double p999 = toMillis(histogram.getValueAtPercentile(99.9));
+                double max = toMillis(histogram.getMaxValue());
+                System.out.println(String.format("%-42s %8d %7d %9.2f %9.2f %9.2f %9.2f",
+                        key, histogram.getTotalCount(), getErrors(key), p50, p99, p999, max));
+                csv.println(String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f",
+                        key, histogram.getTotalCount(), getErrors(key), p50, p99, p999, max));
+            });
+        }
+        System.out.println("Отчет сохранен в " + reportPath.toAbsolutePath());
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
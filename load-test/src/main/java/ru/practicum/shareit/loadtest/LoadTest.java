@@ -0,0 +1,32 @@
+package ru.practicum.shareit.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Нагрузочный тест шлюза и сервера: запуск обоих приложений, заполнение базы и подача смеси запросов
+ * с заданной частотой. Пример аргументов: users=1000 rps=500 warmupSeconds=15 durationSeconds=60
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.from(args);
+        System.out.println("Параметры: " + config);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        try (ShareItProcesses processes = new ShareItProcesses()) {
+            processes.start(config);
+
+            long seedStart = System.nanoTime();
+            List<Long> userIds = new Seeder(config, httpClient).seed();
+            System.out.println("База заполнена за " + Duration.ofNanos(System.nanoTime() - seedStart).toSeconds() + " с");
+
+            LoadDriver driver = new LoadDriver(config, httpClient, userIds);
+            driver.report(driver.run());
+        }
+    }
+}
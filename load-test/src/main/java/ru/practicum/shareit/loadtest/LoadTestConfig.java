@@ -0,0 +1,55 @@
+package ru.practicum.shareit.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного теста, задаются аргументами вида name=value
+ */
+public class LoadTestConfig {
+    final String serverJar;
+    final String gatewayJar;
+    final int serverPort;
+    final int gatewayPort;
+    final int users;
+    final int itemsPerUser;
+    final int bookingsPerItem;
+    final int seedThreads;
+    final int rps;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final String report;
+
+    private LoadTestConfig(Map<String, String> args) {
+        serverJar = args.getOrDefault("serverJar", "../server/target/shareit-server-0.0.1-SNAPSHOT-exec.jar");
+        gatewayJar = args.getOrDefault("gatewayJar", "../gateway/target/shareit-gateway-0.0.1-SNAPSHOT.jar");
+        serverPort = Integer.parseInt(args.getOrDefault("serverPort", "19090"));
+        gatewayPort = Integer.parseInt(args.getOrDefault("gatewayPort", "18080"));
+        users = Integer.parseInt(args.getOrDefault("users", "100"));
+        itemsPerUser = Integer.parseInt(args.getOrDefault("itemsPerUser", "3"));
+        bookingsPerItem = Integer.parseInt(args.getOrDefault("bookingsPerItem", "4"));
+        seedThreads = Integer.parseInt(args.getOrDefault("seedThreads", "8"));
+        rps = Integer.parseInt(args.getOrDefault("rps", "100"));
+        warmupSeconds = Integer.parseInt(args.getOrDefault("warmupSeconds", "10"));
+        durationSeconds = Integer.parseInt(args.getOrDefault("durationSeconds", "30"));
+        report = args.getOrDefault("report", "target/load-test-report.csv");
+    }
+
+    static LoadTestConfig from(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Аргумент должен иметь вид name=value: " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestConfig(values);
+    }
+
+    @Override
+    public String toString() {
+        return "users=" + users + ", itemsPerUser=" + itemsPerUser + ", bookingsPerItem=" + bookingsPerItem
+                + ", rps=" + rps + ", warmupSeconds=" + warmupSeconds + ", durationSeconds=" + durationSeconds;
+    }
+}
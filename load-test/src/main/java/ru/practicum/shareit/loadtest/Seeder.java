@@ -0,0 +1,142 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Заполнение базы через шлюз: пользователи с запросами, их вещи и аренды вещей.
+ * Аренды каждой вещи не пересекаются: первая скоро заканчивается (PAST), вторая идет сутки (CURRENT),
+ * остальные начинаются через несколько дней (FUTURE). Статусы чередуются: APPROVED, APPROVED, WAITING, REJECTED
+ */
+public class Seeder {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> userIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<long[]> items = Collections.synchronizedList(new ArrayList<>()); // {id, ownerId}
+
+    Seeder(LoadTestConfig config, HttpClient httpClient) {
+        this.config = config;
+        this.baseUrl = "http://localhost:" + config.gatewayPort;
+        this.httpClient = httpClient;
+    }
+
+    List<Long> seed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(config.seedThreads);
+        try {
+            runAll(executor, config.users, i -> {
+                long userId = post("/users", null, "{\"name\":\"Пользователь " + i + "\","
+                        + "\"email\":\"user" + i + "@shareit.ru\"}");
+                userIds.add(userId);
+                post("/requests", userId, "{\"description\":\"Нужна вещь для задачи " + i + "\"}");
+            });
+            List<Long> owners = new ArrayList<>(userIds);
+            runAll(executor, owners.size(), i -> {
+                long ownerId = owners.get(i);
+                for (int j = 0; j < config.itemsPerUser; j++) {
+                    long itemId = post("/items", ownerId, "{\"name\":\"Вещь " + j + "\","
+                            + "\"description\":\"Инструмент номер " + j + " пользователя " + ownerId + "\","
+                            + "\"available\":true}");
+                    items.add(new long[]{itemId, ownerId});
+                }
+            });
+            List<long[]> seededItems = new ArrayList<>(items);
+            runAll(executor, seededItems.size(), i -> seedBookings(seededItems.get(i), new Random(i)));
+        } finally {
+            executor.shutdown();
+        }
+        // Ждем, пока первые аренды закончатся, а вторые начнутся
+        Thread.sleep(3_000);
+        return new ArrayList<>(userIds);
+    }
+
+    private void seedBookings(long[] item, Random random) throws IOException, InterruptedException {
+        long itemId = item[0];
+        long ownerId = item[1];
+        LocalDateTime now = LocalDateTime.now();
+        for (int j = 0; j < config.bookingsPerItem; j++) {
+            LocalDateTime start;
+            LocalDateTime end;
+            if (j == 0) {
+                start = now.plusSeconds(1);
+                end = now.plusSeconds(2);
+            } else if (j == 1) {
+                start = now.plusSeconds(3);
+                end = now.plusDays(1);
+            } else {
+                start = now.plusDays(j * 2L);
+                end = start.plusDays(1);
+            }
+            long bookerId;
+            do {
+                bookerId = userIds.get(random.nextInt(userIds.size()));
+            } while (bookerId == ownerId && userIds.size() > 1);
+            long bookingId = post("/bookings", bookerId, "{\"itemId\":" + itemId + ","
+                    + "\"start\":\"" + start.format(DATE_TIME) + "\",\"end\":\"" + end.format(DATE_TIME) + "\"}");
+            int status = j % 4;
+            if (status != 2) {
+                send(HttpRequest.newBuilder(URI.create(baseUrl + "/bookings/" + bookingId + "?approved=" + (status != 3)))
+                        .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                        .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                        .build());
+            }
+        }
+    }
+
+    // Метод для создания сущности через шлюз, возвращает id созданной сущности
+    private long post(String path, Long userId, String json) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (userId != null) {
+            request.header("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        JsonNode body = objectMapper.readTree(send(request.build()));
+        return body.get("id").asLong();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " вернул "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static void runAll(ExecutorService executor, int count, SeedTask task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                task.run(index);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private interface SeedTask {
+        void run(int index) throws Exception;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запуск сервера (база H2, профили ci,test) и шлюза отдельными процессами.
+ * Вывод процессов пишется в target/server.log и target/gateway.log
+ */
+public class ShareItProcesses implements AutoCloseable {
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final List<Process> processes = new ArrayList<>();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    void start(LoadTestConfig config) throws IOException, InterruptedException {
+        startJar(config.serverJar, "target/server.log",
+                "--spring.profiles.active=ci,test",
+                "--server.port=" + config.serverPort);
+        awaitHealth(config.serverPort);
+        startJar(config.gatewayJar, "target/gateway.log",
+                "--server.port=" + config.gatewayPort,
+                "--shareit-server.url=http://localhost:" + config.serverPort,
+                "--logging.level.org.springframework.web.client.RestTemplate=INFO");
+        awaitHealth(config.gatewayPort);
+    }
+
+    private void startJar(String jar, String log, String... args) throws IOException {
+        if (!new File(jar).isFile()) {
+            throw new IllegalStateException("Не найден " + jar + ", соберите его: mvn -pl server,gateway package -DskipTests");
+        }
+        List<String> command = new ArrayList<>(List.of("java", "-jar", jar));
+        command.addAll(List.of(args));
+        File logFile = new File(log);
+        logFile.getParentFile().mkdirs();
+        processes.add(new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile)
+                .start());
+    }
+
+    // Метод для ожидания готовности приложения по /actuator/health
+    private void awaitHealth(int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health")).build();
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // приложение еще не слушает порт
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Приложение на порту " + port + " не запустилось за " + START_TIMEOUT);
+    }
+
+    @Override
+    public void close() {
+        processes.forEach(Process::destroy);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import ru.practicum.shareit.booking.phase.Phase;
 import ru.practicum.shareit.status.Status;
 
 import javax.persistence.*;
@@ -20,7 +21,8 @@ import java.util.Objects;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date_time")
@@ -39,6 +41,11 @@ public class Booking {
     @Builder.Default
     private Status status = Status.WAITING; // статус бронирования
 
+    // фаза меняется только планировщиком BookingPhaseScheduler, поэтому сохранение сущности ее не перезаписывает
+    @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
+    private Phase phase = Phase.FUTURE; // фаза бронирования относительно текущего времени
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
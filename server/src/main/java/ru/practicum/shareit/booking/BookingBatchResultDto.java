@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO с результатом обработки одного бронирования из пакета
+ */
+@Getter
+@Setter
+public class BookingBatchResultDto {
+    private int index; // позиция бронирования в запросе
+    private int status; // HTTP-статус, который получило бы это бронирование при создании по одному
+    private String error;
+    private BookingCreateDto booking;
+}
@@ -1,11 +1,16 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.HeaderKey;
 import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -16,6 +21,7 @@ import java.util.List;
 @RequestMapping(path = "/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
 
     @PostMapping
     public ResponseEntity<BookingCreateDto> createNewBooking(@RequestBody BookingCreateDto bookingCreateDto,
@@ -23,6 +29,12 @@ public class BookingController {
         return bookingService.create(bookingCreateDto, userId);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> createNewBookings(@RequestBody List<BookingCreateDto> bookingsCreateDto,
+                                                                         @RequestHeader(HeaderKey.USER_KEY) Long userId) {
+        return bookingService.createBatch(bookingsCreateDto, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<BookingDto> setStatusBooking(@RequestHeader(HeaderKey.USER_KEY) Long userId,
                                                        @PathVariable("bookingId") Long bookingId,
@@ -30,6 +42,13 @@ public class BookingController {
         return bookingService.setStatus(userId, bookingId, approved);
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<List<BookingStatusResultDto>> setStatusBookings(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                          @RequestBody BookingStatusBatchDto bookingStatusBatchDto,
+                                                                          @RequestParam(value = "approved", required = false) Boolean approved) {
+        return bookingService.setStatusBatch(userId, bookingStatusBatchDto, approved);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<BookingDto> findById(@RequestHeader(HeaderKey.USER_KEY) Long userId,
                                                @PathVariable("bookingId") Long bookingId) {
@@ -40,15 +59,44 @@ public class BookingController {
     public ResponseEntity<List<BookingDto>> findAllForUser(@RequestHeader(HeaderKey.USER_KEY) Long userId,
                                                            @RequestParam(value = "state", required = false) State state,
                                                            @RequestParam(name = "from", required = false) Integer from,
-                                                           @RequestParam(name = "size", required = false) Integer size) {
-        return bookingService.findAllForUser(userId, state, from, size);
+                                                           @RequestParam(name = "size", required = false) Integer size,
+                                                           @RequestParam(name = "cursorEnd", required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorEnd,
+                                                           @RequestParam(name = "cursorId", required = false) Long cursorId) {
+        return bookingService.findAllForUser(userId, state, from, size, cursorEnd, cursorId);
+    }
+
+    @GetMapping("/export")
+    public void exportForUser(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                              @RequestParam(value = "state", required = false) State state,
+                              @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                              HttpServletResponse response) throws IOException {
+        bookingExportService.exportForUser(userId, state, format, response);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<List<BookingDto>> findAllForOwner(@RequestHeader(HeaderKey.USER_KEY) Long userId,
                                                             @RequestParam(value = "state", required = false) State state,
                                                             @RequestParam(name = "from", required = false) Integer from,
-                                                            @RequestParam(name = "size", required = false) Integer size) {
-        return bookingService.findAllForOwner(userId, state, from, size);
+                                                            @RequestParam(name = "size", required = false) Integer size,
+                                                            @RequestParam(name = "cursorEnd", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorEnd,
+                                                            @RequestParam(name = "cursorId", required = false) Long cursorId) {
+        return bookingService.findAllForOwner(userId, state, from, size, cursorEnd, cursorId);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportForOwner(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                               @RequestParam(value = "state", required = false) State state,
+                               @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        bookingExportService.exportForOwner(userId, state, format, response);
+    }
+
+    @GetMapping("/owner/dashboard")
+    public ResponseEntity<List<ItemBookingStatsDto>> findOwnerDashboard(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                                        @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                        @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        return bookingService.findOwnerDashboard(userId, from, size);
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+/**
+ * Проекция бронирования вместе с владельцем и названием бронируемой вещи
+ */
+public interface BookingDetails {
+    Booking getBooking();
+
+    Long getOwnerId();
+
+    String getItemName();
+
+    Long getItemVersion();
+}
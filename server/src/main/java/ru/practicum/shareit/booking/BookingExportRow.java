@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.status.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция бронирования для выгрузки: только колонки, которые попадают в файл, вместе с названием вещи
+ */
+public interface BookingExportRow {
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    Status getStatus();
+
+    Long getItemId();
+
+    String getItemName();
+
+    Long getBookerId();
+}
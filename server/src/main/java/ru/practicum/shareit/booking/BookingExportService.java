@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.state.State;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public interface BookingExportService {
+    String NDJSON = "application/x-ndjson";
+
+    String CSV = "text/csv";
+
+    // Метод для потоковой выгрузки всех бронирований пользователя в формате ndjson или csv
+    void exportForUser(Long userId, State state, String format, HttpServletResponse response) throws IOException;
+
+    // Метод для потоковой выгрузки всех бронирований вещей владельца в формате ndjson или csv
+    void exportForOwner(Long userId, State state, String format, HttpServletResponse response) throws IOException;
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.phase.Phase;
+import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.status.Status;
+import ru.practicum.shareit.user.UserCache;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Класс-сервис для выгрузки истории бронирований.
+ * Строки читаются из базы курсором и сразу пишутся в ответ, поэтому результат целиком в памяти не хранится
+ */
+@Service
+@Setter(onMethod_ = @Autowired)
+@Slf4j
+public class BookingExportServiceImpl implements BookingExportService {
+    private static final String FORMAT_NDJSON = "ndjson";
+    private static final String FORMAT_CSV = "csv";
+    private static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId";
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private BookingRepository bookingRepository;
+    private UserCache userCache;
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportForUser(Long userId, State state, String format, HttpServletResponse response) throws IOException {
+        checkRequest(userId, format);
+        try (Stream<BookingExportRow> rows = bookingRepository
+                .streamAllByBookerId(userId, getStatuses(state), getPhases(state))) {
+            long count = write(rows, format, response);
+            log.info("Выгружено {} бронирований пользователя id = {} в формате {}", count, userId, format);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportForOwner(Long userId, State state, String format, HttpServletResponse response) throws IOException {
+        checkRequest(userId, format);
+        try (Stream<BookingExportRow> rows = bookingRepository
+                .streamAllByOwnerId(userId, getStatuses(state), getPhases(state))) {
+            long count = write(rows, format, response);
+            log.info("Выгружено {} бронирований вещей владельца id = {} в формате {}", count, userId, format);
+        }
+    }
+
+    // проверки выполняются до записи в ответ, чтобы ошибка вернулась с обычным статусом и телом
+    private void checkRequest(Long userId, String format) {
+        if (userCache.findById(userId).isEmpty()) {
+            log.warn("Пользователь с id = {} не найден", userId);
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            log.warn("Unknown format: {}", format);
+            throw new BadRequestException("Unknown format: " + format);
+        }
+    }
+
+    private long write(Stream<BookingExportRow> rows, String format, HttpServletResponse response) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        response.setContentType(csv ? CSV : NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings." + format + "\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long count = 0;
+        Iterator<BookingExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            BookingExportRow row = iterator.next();
+            writer.write(csv ? toCsv(row) : objectMapper.writeValueAsString(BookingMapper.toBookingDto(row)));
+            writer.write('\n');
+            count++;
+            // порция отправляется клиенту, пока из базы читается следующая
+            if (count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String toCsv(BookingExportRow row) {
+        return row.getId() + "," + row.getStart() + "," + row.getEnd() + "," + row.getStatus() + ","
+                + row.getItemId() + "," + escapeCsv(row.getItemName()) + "," + row.getBookerId();
+    }
+
+    // значение с запятой, кавычкой или переводом строки берется в кавычки, кавычки внутри удваиваются;
+    // отсутствующее значение выводится пустым полем
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    // фильтры состояний совпадают с постраничными списками бронирований
+    private Collection<Status> getStatuses(State state) {
+        if (state == State.WAITING) {
+            return List.of(Status.WAITING);
+        }
+        if (state == State.REJECTED) {
+            return List.of(Status.REJECTED);
+        }
+        return EnumSet.allOf(Status.class);
+    }
+
+    private Collection<Phase> getPhases(State state) {
+        if (state == null) {
+            return EnumSet.allOf(Phase.class);
+        }
+        switch (state) {
+            case ALL:
+            case WAITING:
+            case REJECTED:
+                return EnumSet.allOf(Phase.class);
+            case PAST:
+                return List.of(Phase.PAST);
+            case CURRENT:
+                return List.of(Phase.CURRENT);
+            case FUTURE:
+                return List.of(Phase.FUTURE, Phase.CURRENT);
+            default:
+                log.warn("Unknown state: {}", state);
+                throw new BadRequestException("Unknown state: " + state);
+        }
+    }
+}
@@ -26,6 +26,17 @@ public class BookingMapper {
         return bookingDto;
     }
 
+    public static BookingDto toBookingDto(BookingExportRow row) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(row.getId());
+        bookingDto.setStart(row.getStart());
+        bookingDto.setEnd(row.getEnd());
+        bookingDto.setStatus(row.getStatus());
+        bookingDto.setItem(new BookingDto.Item(row.getItemId(), row.getItemName()));
+        bookingDto.setBooker(new BookingDto.Booker(row.getBookerId()));
+        return bookingDto;
+    }
+
     public static Booking toBooking(BookingCreateDto bookingCreateDto, Long userId) {
         Booking booking = new Booking();
         booking.setStart(bookingCreateDto.getStart());
@@ -1,41 +1,103 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.phase.BookingBoundary;
+import ru.practicum.shareit.booking.phase.Phase;
 import ru.practicum.shareit.status.Status;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBookerIdOrderByEndDesc(Long bookedId);
+    // Условие курсора (end_date_time, id): страница начинается строго после последней полученной брони
+    String KEYSET = " and (b.end < :cursorEnd or (b.end = :cursorEnd and b.id < :cursorId))";
 
-    Page<Booking> findAllByBookerIdOrderByEndDesc(Long bookedId, Pageable pageable);
+    String KEYSET_ORDER = " order by b.end desc, b.id desc";
 
-    Page<Booking> findAllByBookerIdAndStatusOrderByEndDesc(Long bookerId, Status status, Pageable pageable);
+    String PHASE = "ru.practicum.shareit.booking.phase.Phase.";
 
+    String BY_BOOKER = "select b from Booking as b" +
+            " where b.bookerId = :bookerId";
 
-    @Query("select b from Booking as b" +
+    String BY_OWNER = "select b from Booking as b" +
             " join Item as i on i.id = b.itemId" +
-            " where i.ownerId = :ownerId" +
-            " order by b.end desc ")
-    List<Booking> findAllByOwnerIdOrderByEndDesc(@Param("ownerId") Long ownerId);
+            " where i.ownerId = :ownerId";
 
-    @Query("select b from Booking as b" +
-            " join Item as i on i.id = b.itemId" +
-            " where i.ownerId = :ownerId" +
-            " order by b.end desc ")
-    Page<Booking> findAllByOwnerIdOrderByEndDesc(@Param("ownerId") Long ownerId, Pageable pageable);
+    // Выгрузка читается курсором порциями по EXPORT_FETCH_SIZE строк
+    String EXPORT_FETCH_SIZE = "1000";
 
-    @Query("select b from Booking as b" +
+    String EXPORT = "select b.id as id, b.start as start, b.end as end, b.status as status," +
+            " b.itemId as itemId, i.name as itemName, b.bookerId as bookerId from Booking as b" +
             " join Item as i on i.id = b.itemId" +
-            " where i.ownerId = :ownerId and b.status = :status" +
-            " order by b.end desc ")
-    Page<Booking> findAllByOwnerIdAndStatusOrderByEndDesc(@Param("ownerId") Long ownerId,
-                                                          @Param("status") Status status,
-                                                          Pageable pageable);
+            " where b.status in :statuses and b.phase in :phases";
+
+    // Методы для поиска бронирований автора бронирования
+    @Query(BY_BOOKER + KEYSET + KEYSET_ORDER)
+    List<Booking> findAllByBookerId(@Param("bookerId") Long bookerId,
+                                    @Param("cursorEnd") LocalDateTime cursorEnd,
+                                    @Param("cursorId") Long cursorId,
+                                    Pageable pageable);
+
+    @Query(BY_BOOKER + " and b.status = :status" + KEYSET + KEYSET_ORDER)
+    List<Booking> findAllByBookerIdAndStatus(@Param("bookerId") Long bookerId,
+                                             @Param("status") Status status,
+                                             @Param("cursorEnd") LocalDateTime cursorEnd,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
+
+    @Query(BY_BOOKER + " and b.phase in :phases" + KEYSET + KEYSET_ORDER)
+    List<Booking> findAllByBookerIdAndPhaseIn(@Param("bookerId") Long bookerId,
+                                             @Param("phases") Collection<Phase> phases,
+                                             @Param("cursorEnd") LocalDateTime cursorEnd,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
+
+    // Методы для поиска бронирований вещей владельца
+    @Query(BY_OWNER + KEYSET + KEYSET_ORDER)
+    List<Booking> findAllByOwnerId(@Param("ownerId") Long ownerId,
+                                   @Param("cursorEnd") LocalDateTime cursorEnd,
+                                   @Param("cursorId") Long cursorId,
+                                   Pageable pageable);
+
+    @Query(BY_OWNER + " and b.status = :status" + KEYSET + KEYSET_ORDER)
+    List<Booking> findAllByOwnerIdAndStatus(@Param("ownerId") Long ownerId,
+                                            @Param("status") Status status,
+                                            @Param("cursorEnd") LocalDateTime cursorEnd,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable pageable);
+
+    @Query(BY_OWNER + " and b.phase in :phases" + KEYSET + KEYSET_ORDER)
+    List<Booking> findAllByOwnerIdAndPhaseIn(@Param("ownerId") Long ownerId,
+                                             @Param("phases") Collection<Phase> phases,
+                                             @Param("cursorEnd") LocalDateTime cursorEnd,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
+
+    // Методы для потоковой выгрузки бронирований: вызываются внутри транзакции, поток нужно закрыть
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT + " and b.bookerId = :bookerId" + KEYSET_ORDER)
+    Stream<BookingExportRow> streamAllByBookerId(@Param("bookerId") Long bookerId,
+                                                 @Param("statuses") Collection<Status> statuses,
+                                                 @Param("phases") Collection<Phase> phases);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT + " and i.ownerId = :ownerId" + KEYSET_ORDER)
+    Stream<BookingExportRow> streamAllByOwnerId(@Param("ownerId") Long ownerId,
+                                                @Param("statuses") Collection<Status> statuses,
+                                                @Param("phases") Collection<Phase> phases);
 
     @Query(value = "SELECT * from BOOKINGS b " +
             " JOIN ITEMS I ON I.ID = b.ITEM_ID" +
@@ -45,6 +107,120 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             nativeQuery = true)
     List<Booking> findTwoBookingByOwnerIdOrderByEndAsc(@Param("ownerId") Long ownerId, @Param("itemId") Long itemId);
 
+    // Метод для поиска двух ближайших по окончанию подтвержденных аренд сразу для нескольких предметов
+    @Query(value = "SELECT * FROM (" +
+            " SELECT b.*, ROW_NUMBER() OVER (PARTITION BY b.ITEM_ID ORDER BY b.END_DATE_TIME) AS RN" +
+            " FROM BOOKINGS b" +
+            " WHERE b.ITEM_ID IN (:itemIds) AND b.STATUS = 'APPROVED') t" +
+            " WHERE t.RN <= 2" +
+            " ORDER BY t.ITEM_ID, t.END_DATE_TIME",
+            nativeQuery = true)
+    List<Booking> findTwoBookingsByItemIdsOrderByEndAsc(@Param("itemIds") Collection<Long> itemIds);
+
+    // Метод для поиска последней начавшейся подтвержденной аренды сразу для нескольких предметов.
+    // Для каждого предмета читается одна строка индекса (item_id, status, start_date_time), а не вся его история
+    @Query(value = "SELECT b.* FROM ITEMS i" +
+            " JOIN BOOKINGS b ON b.ID = (SELECT l.ID FROM BOOKINGS l" +
+            " WHERE l.ITEM_ID = i.ID AND l.STATUS = 'APPROVED' AND l.START_DATE_TIME < :now" +
+            " ORDER BY l.START_DATE_TIME DESC LIMIT 1)" +
+            " WHERE i.ID IN (:itemIds)",
+            nativeQuery = true)
+    List<Booking> findLastApprovedByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                            @Param("now") LocalDateTime now);
+
+    // Метод для поиска ближайшей еще не начавшейся подтвержденной аренды сразу для нескольких предметов,
+    // так же по одной строке индекса на предмет
+    @Query(value = "SELECT b.* FROM ITEMS i" +
+            " JOIN BOOKINGS b ON b.ID = (SELECT n.ID FROM BOOKINGS n" +
+            " WHERE n.ITEM_ID = i.ID AND n.STATUS = 'APPROVED' AND n.START_DATE_TIME > :now" +
+            " ORDER BY n.START_DATE_TIME LIMIT 1)" +
+            " WHERE i.ID IN (:itemIds)",
+            nativeQuery = true)
+    List<Booking> findNextApprovedByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                            @Param("now") LocalDateTime now);
+
     List<Booking> findByBookerIdAndItemId(Long bookerId, Long itemId);
 
+    // Метод для проверки пересечения периода с бронированиями предмета в указанных статусах
+    @Query("select case when count(b) > 0 then true else false end from Booking as b" +
+            " where b.itemId = :itemId and b.status in :statuses" +
+            " and b.start < :end and b.end > :start")
+    boolean existsOverlapping(@Param("itemId") Long itemId,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end,
+                              @Param("statuses") Collection<Status> statuses);
+
+    // Метод для проверки пересечения периода бронирования с другими бронированиями того же предмета
+    @Query("select case when count(b) > 0 then true else false end from Booking as b" +
+            " where b.itemId = :itemId and b.id <> :bookingId and b.status in :statuses" +
+            " and b.start < :end and b.end > :start")
+    boolean existsOverlappingExcept(@Param("bookingId") Long bookingId,
+                                    @Param("itemId") Long itemId,
+                                    @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end,
+                                    @Param("statuses") Collection<Status> statuses);
+
+    // Метод для поиска бронирований нескольких предметов в указанных статусах, пересекающих общий период
+    @Query("select b from Booking as b" +
+            " where b.itemId in :itemIds and b.status in :statuses" +
+            " and b.start < :end and b.end > :start")
+    List<Booking> findOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end,
+                                  @Param("statuses") Collection<Status> statuses);
+
+    // Метод для блокировки строки бронирования перед сменой статуса, чтобы прежний статус не менялся параллельно
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b where b.id = :bookingId")
+    Optional<Booking> findByIdForUpdate(@Param("bookingId") Long bookingId);
+
+    // Методы для блокировки нескольких бронирований перед сменой статуса; порядок по id исключает взаимные блокировки
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b where b.id in :bookingIds order by b.id")
+    List<Booking> findAllByIdForUpdate(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b where b.itemId = :itemId and b.status = :status order by b.id")
+    List<Booking> findAllByItemIdAndStatusForUpdate(@Param("itemId") Long itemId, @Param("status") Status status);
+
+    // Метод для поиска бронирования вместе с владельцем и названием вещи одним запросом
+    @Query("select b as booking, i.ownerId as ownerId, i.name as itemName, i.version as itemVersion from Booking as b" +
+            " join Item as i on i.id = b.itemId" +
+            " where b.id = :bookingId")
+    Optional<BookingDetails> findDetailsById(@Param("bookingId") Long bookingId);
+
+    // Метод для поиска нескольких бронирований вместе с владельцами вещей одним запросом
+    @Query("select b as booking, i.ownerId as ownerId, i.name as itemName, i.version as itemVersion from Booking as b" +
+            " join Item as i on i.id = b.itemId" +
+            " where b.id in :bookingIds")
+    List<BookingDetails> findDetailsByIds(@Param("bookingIds") Collection<Long> bookingIds);
+
+    // Метод для смены статуса сразу у нескольких бронирований
+    @Modifying
+    @Query("update Booking as b set b.status = :status where b.id in :bookingIds")
+    int updateStatus(@Param("bookingIds") Collection<Long> bookingIds, @Param("status") Status status);
+
+    // Методы для планировщика фаз бронирований
+    @Query("select b.id as id, b.start as start, b.end as end from Booking as b" +
+            " where (b.phase = " + PHASE + "FUTURE and b.start < :until)" +
+            " or (b.phase = " + PHASE + "CURRENT and b.end < :until)")
+    List<BookingBoundary> findBoundariesBefore(@Param("until") LocalDateTime until);
+
+    // Методы для блокировки бронирований, переходящих в следующую фазу, вместе с их текущей фазой
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b where b.id in :ids and b.phase in :fromPhases order by b.id")
+    List<Booking> findAllByIdAndPhaseInForUpdate(@Param("ids") Collection<Long> ids,
+                                                 @Param("fromPhases") Collection<Phase> fromPhases);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b where b.phase <> " + PHASE + "PAST and b.end < :now order by b.id")
+    List<Booking> findAllEndedBeforeForUpdate(@Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking as b where b.phase = " + PHASE + "FUTURE and b.start < :now order by b.id")
+    List<Booking> findAllStartedBeforeForUpdate(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Booking as b set b.phase = :phase where b.id in :ids")
+    int updatePhase(@Param("ids") Collection<Long> ids, @Param("phase") Phase phase);
 }
@@ -2,7 +2,9 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.http.ResponseEntity;
 import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
@@ -10,15 +12,27 @@ public interface BookingService {
     // Метод для создания бронирования по запросу пользователя
     ResponseEntity<BookingCreateDto> create(BookingCreateDto bookingCreateDto, Long userId);
 
+    // Метод для создания пакета бронирований целиком или отклонения всего пакета
+    ResponseEntity<List<BookingBatchResultDto>> createBatch(List<BookingCreateDto> bookingsCreateDto, Long userId);
+
     // Метод для назначения статуса для бронирования
     ResponseEntity<BookingDto> setStatus(Long userId, Long bookingId, Boolean approved);
 
+    // Метод для назначения статуса сразу нескольким бронированиям владельца
+    ResponseEntity<List<BookingStatusResultDto>> setStatusBatch(Long userId, BookingStatusBatchDto bookingStatusBatchDto,
+                                                                Boolean approved);
+
     // Метод для поиска бронирования по его id
     ResponseEntity<BookingDto> findById(Long userId, Long bookingId);
 
     // Метод для поиска всей аренды для пользователя, который осуществляет бронирование
-    ResponseEntity<List<BookingDto>> findAllForUser(Long userId, State state, Integer from, Integer size);
+    ResponseEntity<List<BookingDto>> findAllForUser(Long userId, State state, Integer from, Integer size,
+                                                    LocalDateTime cursorEnd, Long cursorId);
 
     // Метод для поиска всей аренды для пользователя, который является владельцем вещи
-    ResponseEntity<List<BookingDto>> findAllForOwner(Long userId, State state, Integer from, Integer size);
+    ResponseEntity<List<BookingDto>> findAllForOwner(Long userId, State state, Integer from, Integer size,
+                                                     LocalDateTime cursorEnd, Long cursorId);
+
+    // Метод для получения сводки по бронированиям всех вещей владельца
+    ResponseEntity<List<ItemBookingStatsDto>> findOwnerDashboard(Long userId, Integer from, Integer size);
 }
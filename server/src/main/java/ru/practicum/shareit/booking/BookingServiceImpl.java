@@ -5,21 +5,33 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.phase.BookingPhaseScheduler;
+import ru.practicum.shareit.booking.phase.Phase;
 import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.booking.stats.ItemBookingStats;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsChange;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsDto;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsMapper;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.status.Status;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Класс-сервис, который предназначен для реализации основной бизнес-логики.
@@ -28,9 +40,16 @@ import java.util.Optional;
 @Setter(onMethod_ = @Autowired)
 @Slf4j
 public class BookingServiceImpl implements BookingService {
+    // Значение курсора для первой страницы: раньше него заканчиваются все бронирования
+    private static final LocalDateTime FIRST_PAGE_CURSOR_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    // Статусы бронирований, занимающих период предмета
+    private static final List<Status> ACTIVE_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+
     private BookingRepository bookingRepository;
-    private UserRepository userRepository;
+    private UserCache userCache;
     private ItemRepository itemRepository;
+    private ItemBookingStatsRepository itemBookingStatsRepository;
+    private BookingPhaseScheduler bookingPhaseScheduler;
 
     @Transactional
     @Override
@@ -41,19 +60,118 @@ public class BookingServiceImpl implements BookingService {
         }
         Booking booking = BookingMapper.toBooking(bookingCreateDto, userId);
         Booking bookingAnswer = bookingRepository.save(booking);
+        bookingPhaseScheduler.register(bookingAnswer);
+        addWaiting(booking.getItemId(), 1);
         log.info("Бронь id = {} успешно запрошена пользователем id = {}", bookingAnswer.getId(), userId);
         return ResponseEntity.ok(BookingMapper.toBookingCreateDto(bookingAnswer));
     }
 
+    @Transactional
+    @Override
+    public ResponseEntity<List<BookingBatchResultDto>> createBatch(List<BookingCreateDto> bookingsCreateDto,
+                                                                   Long userId) {
+        if (checkUserById(userId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (bookingsCreateDto.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        // все предметы пакета загружаются и блокируются одним запросом
+        Set<Long> itemIds = new HashSet<>();
+        bookingsCreateDto.forEach(bookingCreateDto -> itemIds.add(bookingCreateDto.getItemId()));
+        Map<Long, Item> items = new HashMap<>();
+        itemRepository.findAllByIdForUpdate(itemIds).forEach(item -> items.put(item.getId(), item));
+
+        // занятые периоды всех предметов пакета загружаются одним запросом по общему периоду пакета
+        LocalDateTime minStart = null;
+        LocalDateTime maxEnd = null;
+        for (BookingCreateDto bookingCreateDto : bookingsCreateDto) {
+            if (bookingCreateDto.getStart() != null
+                    && (minStart == null || bookingCreateDto.getStart().isBefore(minStart))) {
+                minStart = bookingCreateDto.getStart();
+            }
+            if (bookingCreateDto.getEnd() != null
+                    && (maxEnd == null || bookingCreateDto.getEnd().isAfter(maxEnd))) {
+                maxEnd = bookingCreateDto.getEnd();
+            }
+        }
+        Map<Long, List<Booking>> takenByItem = new HashMap<>();
+        if (minStart != null && maxEnd != null && !items.isEmpty()) {
+            bookingRepository.findOverlapping(items.keySet(), minStart, maxEnd, ACTIVE_STATUSES)
+                    .forEach(booking -> takenByItem.computeIfAbsent(booking.getItemId(), id -> new ArrayList<>())
+                            .add(booking));
+        }
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        boolean rejected = false;
+        for (int i = 0; i < bookingsCreateDto.size(); i++) {
+            BookingBatchResultDto result = validateForBatchCreate(i, bookingsCreateDto.get(i), userId, items,
+                    takenByItem);
+            if (result != null) {
+                rejected = true;
+                results.add(result);
+                continue;
+            }
+            Booking booking = BookingMapper.toBooking(bookingsCreateDto.get(i), userId);
+            // принятое бронирование занимает период для следующих бронирований этого же пакета
+            takenByItem.computeIfAbsent(booking.getItemId(), id -> new ArrayList<>()).add(booking);
+            bookings.add(booking);
+            results.add(null);
+        }
+        // пакет создается целиком или не создается совсем
+        if (rejected) {
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) == null) {
+                    results.set(i, getBatchResult(i, HttpStatus.FAILED_DEPENDENCY,
+                            "Бронирование не создано из-за ошибок в других бронированиях пакета"));
+                }
+            }
+            log.warn("Пакет из {} бронирований пользователя id = {} отклонен", bookingsCreateDto.size(), userId);
+            return new ResponseEntity<>(results, HttpStatus.BAD_REQUEST);
+        }
+
+        List<Booking> bookingsAnswer = bookingRepository.saveAll(bookings);
+        Map<Long, Long> countsByItem = new HashMap<>();
+        for (int i = 0; i < bookingsAnswer.size(); i++) {
+            Booking booking = bookingsAnswer.get(i);
+            bookingPhaseScheduler.register(booking);
+            countsByItem.merge(booking.getItemId(), 1L, Long::sum);
+            BookingBatchResultDto result = getBatchResult(i, HttpStatus.OK, null);
+            result.setBooking(BookingMapper.toBookingCreateDto(booking));
+            results.set(i, result);
+        }
+        countsByItem.forEach(this::addWaiting);
+        log.info("Пакет из {} бронирований успешно запрошен пользователем id = {}", bookingsAnswer.size(), userId);
+        return ResponseEntity.ok(results);
+    }
+
     @Transactional
     @Override
     public ResponseEntity<BookingDto> setStatus(Long userId, Long bookingId, Boolean approved) {
-        ResponseEntity<BookingDto> resultValidateForSetStatus = validateForSetStatus(userId, bookingId, approved);
+        if (checkUserById(userId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        // строка блокируется до чтения статуса, иначе параллельная смена статуса учтется в статистике дважды;
+        // запрос деталей вернет уже заблокированную сущность из контекста
+        bookingRepository.findByIdForUpdate(bookingId);
+        Optional<BookingDetails> details = bookingRepository.findDetailsById(bookingId);
+        ResponseEntity<BookingDto> resultValidateForSetStatus = validateForSetStatus(userId, bookingId, details, approved);
         if (resultValidateForSetStatus != null) {
             return resultValidateForSetStatus;
         }
 
-        Booking booking = bookingRepository.findById(bookingId).get();
+        Booking booking = details.get().getBooking();
+        Status previousStatus = booking.getStatus();
+        if (approved.equals(Boolean.TRUE) && !ACTIVE_STATUSES.contains(previousStatus)) {
+            // блокировка строки предмета, как при создании бронирования, чтобы проверки пересечений шли по очереди
+            itemRepository.findByIdForUpdate(booking.getItemId());
+            if (isOverlappingOnApproval(booking, List.of())) {
+                log.warn("Предмет id = {} уже забронирован на время бронирования id = {}", booking.getItemId(),
+                        bookingId);
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+        }
         //Изменение сущности бронирования с учетом подтверждения владельцем вещи для аренды
         if (approved.equals(Boolean.TRUE)) {
             //Изменение статуса у бронирования и сохранение в БД
@@ -65,79 +183,167 @@ public class BookingServiceImpl implements BookingService {
             bookingRepository.save(booking);
             log.info("Бронь id = {} успешно отклонена владельцем id = {}", bookingId, userId);
         }
-        BookingDto result = BookingMapper.toBookingDto(booking,
-                new BookingDto.Item(booking.getItemId(),
-                        itemRepository.findById(booking.getItemId()).get().getName()),
-                new BookingDto.Booker(booking.getBookerId()));
-        return ResponseEntity.ok(result);
+        ItemBookingStatsChange change = new ItemBookingStatsChange();
+        change.add(booking, previousStatus, booking.getStatus());
+        applyStatsChange(booking.getItemId(), change);
+        return ResponseEntity.ok(getBookingDto(details.get()));
+    }
+
+    @Transactional
+    @Override
+    public ResponseEntity<List<BookingStatusResultDto>> setStatusBatch(Long userId,
+                                                                       BookingStatusBatchDto bookingStatusBatchDto,
+                                                                       Boolean approved) {
+        if (checkUserById(userId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        //Проверка на существование подтверждение
+        if (approved == null) {
+            log.warn("Параметр approved не был передан");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        //Бронирования задаются либо списком id, либо вещью
+        List<Long> bookingIds = bookingStatusBatchDto.getBookingIds();
+        Long itemId = bookingStatusBatchDto.getItemId();
+        if ((bookingIds == null) == (itemId == null)) {
+            log.warn("Нужно передать либо список бронирований, либо id вещи");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        // строки бронирований блокируются до чтения статусов, иначе параллельная смена статуса
+        // учтется в статистике дважды; запрос деталей вернет уже заблокированные сущности из контекста
+        if (itemId != null) {
+            Optional<Item> item = itemRepository.findById(itemId);
+            if (item.isEmpty() || !item.get().getOwnerId().equals(userId)) {
+                log.warn("Предмет id = {} не найден у пользователя id = {}", itemId, userId);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            bookingIds = new ArrayList<>();
+            for (Booking booking : bookingRepository.findAllByItemIdAndStatusForUpdate(itemId, Status.WAITING)) {
+                bookingIds.add(booking.getId());
+            }
+        } else if (!bookingIds.isEmpty()) {
+            bookingRepository.findAllByIdForUpdate(bookingIds);
+        }
+        // бронирования загружаются вместе с владельцами вещей одним запросом
+        List<BookingDetails> detailsList = bookingIds.isEmpty() ? List.of()
+                : bookingRepository.findDetailsByIds(bookingIds);
+        Map<Long, BookingDetails> detailsById = new HashMap<>();
+        detailsList.forEach(details -> detailsById.put(details.getBooking().getId(), details));
+
+        Status status = approved.equals(Boolean.TRUE) ? Status.APPROVED : Status.REJECTED;
+        if (status == Status.APPROVED) {
+            // предметы бронирований, которые снова займут период, блокируются по порядку id, как при создании
+            Set<Long> itemIds = new HashSet<>();
+            detailsList.stream()
+                    .map(BookingDetails::getBooking)
+                    .filter(booking -> !ACTIVE_STATUSES.contains(booking.getStatus()))
+                    .forEach(booking -> itemIds.add(booking.getItemId()));
+            if (!itemIds.isEmpty()) {
+                itemRepository.findAllByIdForUpdate(itemIds);
+            }
+        }
+        List<BookingStatusResultDto> results = new ArrayList<>();
+        Set<Long> changedIds = new HashSet<>();
+        List<Booking> approvedInBatch = new ArrayList<>();
+        Map<Long, ItemBookingStatsChange> changesByItem = new HashMap<>();
+        for (Long bookingId : bookingIds) {
+            BookingStatusResultDto result = new BookingStatusResultDto();
+            result.setBookingId(bookingId);
+            Optional<BookingDetails> details = Optional.ofNullable(detailsById.get(bookingId));
+            ResponseEntity<BookingDto> resultValidateForSetStatus = validateForSetStatus(userId, bookingId, details,
+                    approved);
+            if (resultValidateForSetStatus == null && status == Status.APPROVED && !changedIds.contains(bookingId)
+                    && !ACTIVE_STATUSES.contains(details.get().getBooking().getStatus())) {
+                if (isOverlappingOnApproval(details.get().getBooking(), approvedInBatch)) {
+                    resultValidateForSetStatus = new ResponseEntity<>(HttpStatus.CONFLICT);
+                } else {
+                    approvedInBatch.add(details.get().getBooking());
+                }
+            }
+            if (resultValidateForSetStatus != null) {
+                result.setStatus(resultValidateForSetStatus.getStatusCodeValue());
+                result.setError(resultValidateForSetStatus.getStatusCode().getReasonPhrase());
+            } else {
+                Booking booking = details.get().getBooking();
+                // повторный id в списке меняет статус только один раз
+                if (changedIds.add(bookingId)) {
+                    changesByItem.computeIfAbsent(booking.getItemId(), id -> new ItemBookingStatsChange())
+                            .add(booking, booking.getStatus(), status);
+                }
+                result.setStatus(HttpStatus.OK.value());
+                result.setBookingStatus(status);
+            }
+            results.add(result);
+        }
+
+        // статус всех прошедших проверку бронирований меняется одним запросом
+        if (!changedIds.isEmpty()) {
+            bookingRepository.updateStatus(changedIds, status);
+            changesByItem.forEach(this::applyStatsChange);
+        }
+        log.info("Статус {} назначен {} бронированиям владельцем id = {}", status, changedIds.size(), userId);
+        return ResponseEntity.ok(results);
     }
 
     @Transactional(readOnly = true)
     @Override
     public ResponseEntity<BookingDto> findById(Long userId, Long bookingId) {
-        ResponseEntity<BookingDto> resultCheckBookerAndOwner = checkBookerAndOwner(userId, bookingId);
+        if (checkUserById(userId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Optional<BookingDetails> details = bookingRepository.findDetailsById(bookingId);
+        ResponseEntity<BookingDto> resultCheckBookerAndOwner = checkBookerAndOwner(userId, bookingId, details);
         if (resultCheckBookerAndOwner != null) {
             return resultCheckBookerAndOwner;
         }
-        Booking booking = bookingRepository.findById(bookingId).get();
-        BookingDto result = BookingMapper.toBookingDto(booking,
-                new BookingDto.Item(booking.getItemId(),
-                        itemRepository.findById(booking.getItemId()).get().getName()),
-                new BookingDto.Booker(booking.getBookerId()));
-        return ResponseEntity.ok(result);
+        // Изменяемы только статус бронирования и название вещи, по ним и строится ETag
+        Booking booking = details.get().getBooking();
+        return ResponseEntity.ok()
+                .eTag(bookingId + "-" + booking.getStatus() + "-" + details.get().getItemVersion())
+                .body(getBookingDto(details.get()));
     }
 
     @Transactional(readOnly = true)
     @Override
-    public ResponseEntity<List<BookingDto>> findAllForUser(Long userId, State state, Integer from, Integer size) {
+    public ResponseEntity<List<BookingDto>> findAllForUser(Long userId, State state, Integer from, Integer size,
+                                                           LocalDateTime cursorEnd, Long cursorId) {
         if (checkUserById(userId)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         if (state == null) {
             state = State.ALL;
         }
-        List<Booking> resultBookings = new ArrayList<>();
-
-        //если пагинация выходит за список, то изменим ее размер
-        int sizeBookings = bookingRepository.findAllByBookerIdOrderByEndDesc(userId).size();
-        if (sizeBookings < from + size) {
-            size = sizeBookings - from;
+        boolean hasCursor = cursorEnd != null && cursorId != null;
+        Pageable pageable = hasCursor ? PageRequest.of(0, size) : PageRequest.of(from, size);
+        if (!hasCursor) {
+            cursorEnd = FIRST_PAGE_CURSOR_END;
+            cursorId = Long.MAX_VALUE;
         }
-        Pageable pageable = PageRequest.of(from, size);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByEndDesc(userId, pageable).getContent();
+        List<Booking> resultBookings;
         switch (state) {
             case ALL:
-                resultBookings = bookingRepository.findAllByBookerIdOrderByEndDesc(userId, pageable).getContent();
+                resultBookings = bookingRepository.findAllByBookerId(userId, cursorEnd, cursorId, pageable);
                 break;
             case WAITING:
                 resultBookings = bookingRepository
-                        .findAllByBookerIdAndStatusOrderByEndDesc(userId, Status.WAITING, pageable).getContent();
+                        .findAllByBookerIdAndStatus(userId, Status.WAITING, cursorEnd, cursorId, pageable);
                 break;
             case REJECTED:
                 resultBookings = bookingRepository
-                        .findAllByBookerIdAndStatusOrderByEndDesc(userId, Status.REJECTED, pageable).getContent();
+                        .findAllByBookerIdAndStatus(userId, Status.REJECTED, cursorEnd, cursorId, pageable);
                 break;
             case PAST:
-                for (Booking booking : bookings) {
-                    if (booking.getEnd().isBefore(LocalDateTime.now())) {
-                        resultBookings.add(booking);
-                    }
-                }
+                resultBookings = bookingRepository
+                        .findAllByBookerIdAndPhaseIn(userId, List.of(Phase.PAST), cursorEnd, cursorId, pageable);
                 break;
             case CURRENT:
-                for (Booking booking : bookings) {
-                    if (booking.getStart().isBefore(LocalDateTime.now())
-                            && booking.getEnd().isAfter(LocalDateTime.now())) {
-                        resultBookings.add(booking);
-                    }
-                }
+                resultBookings = bookingRepository
+                        .findAllByBookerIdAndPhaseIn(userId, List.of(Phase.CURRENT), cursorEnd, cursorId, pageable);
                 break;
             case FUTURE:
-                for (Booking booking : bookings) {
-                    if (booking.getEnd().isAfter(LocalDateTime.now())) {
-                        resultBookings.add(booking);
-                    }
-                }
+                resultBookings = bookingRepository
+                        .findAllByBookerIdAndPhaseIn(userId, List.of(Phase.FUTURE, Phase.CURRENT), cursorEnd, cursorId, pageable);
                 break;
             default:
                 log.warn("Unknown state: {}", state);
@@ -148,69 +354,97 @@ public class BookingServiceImpl implements BookingService {
 
     @Transactional(readOnly = true)
     @Override
-    public ResponseEntity<List<BookingDto>> findAllForOwner(Long userId, State state, Integer from, Integer size) {
+    public ResponseEntity<List<BookingDto>> findAllForOwner(Long userId, State state, Integer from, Integer size,
+                                                            LocalDateTime cursorEnd, Long cursorId) {
         if (checkUserById(userId)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         if (state == null) {
             state = State.ALL;
         }
-        List<Booking> resultBookings = new ArrayList<>();
-
-        //если пагинация выходит за список, то изменим ее размер
-        int sizeBookings = bookingRepository.findAllByOwnerIdOrderByEndDesc(userId).size();
-        if (sizeBookings < from + size && sizeBookings > 0) {
-            size = sizeBookings - from;
+        boolean hasCursor = cursorEnd != null && cursorId != null;
+        Pageable pageable = hasCursor ? PageRequest.of(0, size) : PageRequest.of(from, size);
+        if (!hasCursor) {
+            cursorEnd = FIRST_PAGE_CURSOR_END;
+            cursorId = Long.MAX_VALUE;
         }
-        Pageable pageable = PageRequest.of(from, size);
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdOrderByEndDesc(userId, pageable).getContent();
+        List<Booking> resultBookings;
         switch (state) {
             case ALL:
-                resultBookings = bookingRepository.findAllByOwnerIdOrderByEndDesc(userId, pageable).getContent();
+                resultBookings = bookingRepository.findAllByOwnerId(userId, cursorEnd, cursorId, pageable);
                 break;
             case WAITING:
                 resultBookings = bookingRepository
-                        .findAllByOwnerIdAndStatusOrderByEndDesc(userId, Status.WAITING, pageable).getContent();
+                        .findAllByOwnerIdAndStatus(userId, Status.WAITING, cursorEnd, cursorId, pageable);
                 break;
             case REJECTED:
                 resultBookings = bookingRepository
-                        .findAllByOwnerIdAndStatusOrderByEndDesc(userId, Status.REJECTED, pageable).getContent();
+                        .findAllByOwnerIdAndStatus(userId, Status.REJECTED, cursorEnd, cursorId, pageable);
                 break;
             case PAST:
-                for (Booking booking : bookings) {
-                    if (booking.getEnd().isBefore(LocalDateTime.now())) {
-                        resultBookings.add(booking);
-                    }
-                }
+                resultBookings = bookingRepository
+                        .findAllByOwnerIdAndPhaseIn(userId, List.of(Phase.PAST), cursorEnd, cursorId, pageable);
                 break;
             case CURRENT:
-                for (Booking booking : bookings) {
-                    if (booking.getStart().isBefore(LocalDateTime.now())
-                            && booking.getEnd().isAfter(LocalDateTime.now())) {
-                        resultBookings.add(booking);
-                    }
-                }
+                resultBookings = bookingRepository
+                        .findAllByOwnerIdAndPhaseIn(userId, List.of(Phase.CURRENT), cursorEnd, cursorId, pageable);
                 break;
             case FUTURE:
-                for (Booking booking : bookings) {
-                    if (booking.getEnd().isAfter(LocalDateTime.now())) {
-                        resultBookings.add(booking);
-                    }
-                }
+                resultBookings = bookingRepository
+                        .findAllByOwnerIdAndPhaseIn(userId, List.of(Phase.FUTURE, Phase.CURRENT), cursorEnd, cursorId, pageable);
                 break;
             default:
                 log.warn("Unknown state: {}", state);
                 throw new BadRequestException("Unknown state: " + state);
         }
-
         return ResponseEntity.ok(getBookingsDto(resultBookings));
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public ResponseEntity<List<ItemBookingStatsDto>> findOwnerDashboard(Long userId, Integer from, Integer size) {
+        if (checkUserById(userId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<Item> items = itemRepository.findAllByOwnerId(userId, PageRequest.of(from, size, Sort.by("id")));
+        List<ItemBookingStatsDto> dashboard = new ArrayList<>();
+        if (items.isEmpty()) {
+            return ResponseEntity.ok(dashboard);
+        }
+        List<Long> itemIds = new ArrayList<>();
+        items.forEach(item -> itemIds.add(item.getId()));
+
+        // счетчики по статусам и фазам хранятся готовыми в статистике вещи, из бронирований для каждой вещи
+        // страницы читается по одной строке индекса на последнюю и следующую аренду
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingStats> statsByItem = new HashMap<>();
+        itemBookingStatsRepository.findAllById(itemIds).forEach(stats -> statsByItem.put(stats.getItemId(), stats));
+        Map<Long, Booking> lastBookings = new HashMap<>();
+        bookingRepository.findLastApprovedByItemIds(itemIds, now)
+                .forEach(booking -> lastBookings.put(booking.getItemId(), booking));
+        Map<Long, Booking> nextBookings = new HashMap<>();
+        bookingRepository.findNextApprovedByItemIds(itemIds, now)
+                .forEach(booking -> nextBookings.put(booking.getItemId(), booking));
+
+        items.forEach(item -> dashboard.add(ItemBookingStatsMapper.toItemBookingStatsDto(item,
+                statsByItem.get(item.getId()),
+                lastBookings.get(item.getId()),
+                nextBookings.get(item.getId()))));
+        log.info("Сводка по бронированиям вещей пользователя id = {} успешно сформирована", userId);
+        return ResponseEntity.ok(dashboard);
+    }
+
     // метод возвращаюсь список из преобразованных классов
     private List<BookingDto> getBookingsDto(List<Booking> bookings) {
+        // названия всех предметов страницы загружаются одним запросом
+        Set<Long> itemIds = new HashSet<>();
+        bookings.forEach(booking -> itemIds.add(booking.getItemId()));
+        Map<Long, String> itemNames = new HashMap<>();
+        itemRepository.findAllById(itemIds).forEach(item -> itemNames.put(item.getId(), item.getName()));
+
         List<BookingDto> bookingsDto = new ArrayList<>();
         bookings.forEach(booking -> bookingsDto.add(BookingMapper.toBookingDto(booking,
-                new BookingDto.Item(booking.getItemId(), itemRepository.findById(booking.getItemId()).get().getName()),
+                new BookingDto.Item(booking.getItemId(), itemNames.get(booking.getItemId())),
                 new BookingDto.Booker(booking.getBookerId()))));
         return bookingsDto;
     }
@@ -220,11 +454,14 @@ public class BookingServiceImpl implements BookingService {
         if (checkUserById(userId)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        if (checkItemById(bookingCreateDto.getItemId())) {
+        // блокировка строки предмета до конца транзакции, чтобы параллельные бронирования проверялись по очереди
+        Optional<Item> item = itemRepository.findByIdForUpdate(bookingCreateDto.getItemId());
+        if (item.isEmpty()) {
+            log.warn("Предмет с id = {} не найден", bookingCreateDto.getItemId());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         //проверка на доступность предмета для аренды
-        if (itemRepository.findById(bookingCreateDto.getItemId()).get().getAvailable().equals(Boolean.FALSE)) {
+        if (item.get().getAvailable().equals(Boolean.FALSE)) {
             log.warn("Этот предмет не доступен для аренды");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -236,20 +473,112 @@ public class BookingServiceImpl implements BookingService {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        Optional<Item> item = itemRepository.findById(bookingCreateDto.getItemId());
         //проверка на возможность бронирования владельца собственного предмета
         if (item.get().getOwnerId().equals(userId)) {
             log.warn("Пользователь id = {} является владельцем предмета id = {}", userId, bookingCreateDto.getItemId());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        //проверка на пересечение с ожидающими и подтвержденными бронированиями предмета
+        if (bookingRepository.existsOverlapping(bookingCreateDto.getItemId(),
+                bookingCreateDto.getStart(),
+                bookingCreateDto.getEnd(),
+                ACTIVE_STATUSES)) {
+            log.warn("Предмет id = {} уже забронирован на это время", bookingCreateDto.getItemId());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return null;
     }
 
-    private ResponseEntity<BookingDto> validateForSetStatus(Long userId, Long bookingId, Boolean approved) {
-        if (checkUserById(userId)) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    // метод для проверки, что подтверждение отклоненного или отмененного бронирования не займет уже занятый период:
+    // пока бронирование не занимало период, на это время могли забронировать предмет другие пользователи.
+    // Строка предмета должна быть заблокирована вызывающим методом; approvedInBatch - бронирования,
+    // подтвержденные раньше в том же пакете, их статус в базе еще не изменен
+    private boolean isOverlappingOnApproval(Booking booking, List<Booking> approvedInBatch) {
+        for (Booking other : approvedInBatch) {
+            if (other.getItemId().equals(booking.getItemId())
+                    && other.getStart().isBefore(booking.getEnd())
+                    && other.getEnd().isAfter(booking.getStart())) {
+                return true;
+            }
+        }
+        return bookingRepository.existsOverlappingExcept(booking.getId(), booking.getItemId(), booking.getStart(),
+                booking.getEnd(), ACTIVE_STATUSES);
+    }
+
+    // метод для проверки одного бронирования пакета по заранее загруженным предметам и занятым периодам
+    private BookingBatchResultDto validateForBatchCreate(int index, BookingCreateDto bookingCreateDto, Long userId,
+                                                         Map<Long, Item> items,
+                                                         Map<Long, List<Booking>> takenByItem) {
+        Item item = items.get(bookingCreateDto.getItemId());
+        if (item == null) {
+            return getBatchResult(index, HttpStatus.NOT_FOUND,
+                    "Предмет с id = " + bookingCreateDto.getItemId() + " не найден");
+        }
+        //проверка на доступность предмета для аренды
+        if (item.getAvailable().equals(Boolean.FALSE)) {
+            return getBatchResult(index, HttpStatus.BAD_REQUEST, "Этот предмет не доступен для аренды");
+        }
+        //проверка на адекватность срока бронирования
+        LocalDateTime now = LocalDateTime.now();
+        if (bookingCreateDto.getStart() == null || bookingCreateDto.getEnd() == null
+                || bookingCreateDto.getEnd().isBefore(bookingCreateDto.getStart())
+                || bookingCreateDto.getStart().isBefore(now)
+                || bookingCreateDto.getEnd().isBefore(now)) {
+            return getBatchResult(index, HttpStatus.BAD_REQUEST, "Продолжительность аренды не верно указано");
+        }
+        //проверка на возможность бронирования владельца собственного предмета
+        if (item.getOwnerId().equals(userId)) {
+            return getBatchResult(index, HttpStatus.NOT_FOUND,
+                    "Пользователь id = " + userId + " является владельцем предмета id = " + item.getId());
+        }
+        //проверка на пересечение с ожидающими и подтвержденными бронированиями предмета и бронированиями пакета
+        for (Booking taken : takenByItem.getOrDefault(item.getId(), List.of())) {
+            if (taken.getStart().isBefore(bookingCreateDto.getEnd())
+                    && taken.getEnd().isAfter(bookingCreateDto.getStart())) {
+                return getBatchResult(index, HttpStatus.CONFLICT,
+                        "Предмет id = " + item.getId() + " уже забронирован на это время");
+            }
+        }
+        return null;
+    }
+
+    private BookingBatchResultDto getBatchResult(int index, HttpStatus status, String error) {
+        BookingBatchResultDto result = new BookingBatchResultDto();
+        result.setIndex(index);
+        result.setStatus(status.value());
+        result.setError(error);
+        return result;
+    }
+
+    // метод для учета новых ожидающих бронирований в статистике предмета;
+    // строка предмета заблокирована при проверке бронирования, поэтому строка статистики создается без гонки
+    private void addWaiting(Long itemId, long count) {
+        if (itemBookingStatsRepository.addWaiting(itemId, count) == 0) {
+            itemBookingStatsRepository.createForItems(List.of(itemId));
+            itemBookingStatsRepository.addWaiting(itemId, count);
+        }
+    }
+
+    // метод для применения накопленных изменений к статистике предмета
+    private void applyStatsChange(Long itemId, ItemBookingStatsChange change) {
+        if (change.isEmpty()) {
+            return;
         }
-        if (checkBookingById(bookingId)) {
+        itemBookingStatsRepository.addCounts(itemId, change.getWaiting(), change.getApproved(), change.getRejected(),
+                change.getApprovedSeconds());
+        if (change.isApprovalRemoved()) {
+            // после отмены подтверждения период может сузиться, поэтому он пересчитывается по бронированиям вещи
+            itemBookingStatsRepository.recomputeApprovedPeriod(itemId);
+        } else if (change.getFirstApprovedStart() != null) {
+            itemBookingStatsRepository.extendApprovedPeriod(itemId, change.getFirstApprovedStart(),
+                    change.getLastApprovedEnd());
+        }
+    }
+
+    private ResponseEntity<BookingDto> validateForSetStatus(Long userId, Long bookingId,
+                                                            Optional<BookingDetails> details, Boolean approved) {
+        if (details.isEmpty()) {
+            log.warn("Бронирование id = {} не найдено", bookingId);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         //Проверка на существование подтверждение
@@ -259,44 +588,29 @@ public class BookingServiceImpl implements BookingService {
         }
 
         //проверка на повторное запрос подтверждения
-        if (bookingRepository.findById(bookingId).get().getStatus().equals(Status.APPROVED)
+        if (details.get().getBooking().getStatus().equals(Status.APPROVED)
                 && approved.equals(Boolean.TRUE)) {
             log.warn("Повторное подтверждение бронирование не допустимо");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
 
         }
-        Long ownerId = itemRepository
-                .findById(bookingRepository
-                        .findById(bookingId)
-                        .get()
-                        .getItemId())
-                .get()
-                .getOwnerId();
 
         //Проверка, что пользователь является владельцем предмета
-        if (!ownerId.equals(userId)) {
+        if (!details.get().getOwnerId().equals(userId)) {
             log.warn("Пользователь id = {} не является владельцем предмета", userId);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         return null;
     }
 
-    private ResponseEntity<BookingDto> checkBookerAndOwner(Long userId, Long bookingId) {
-        if (checkUserById(userId)) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-        if (checkBookingById(bookingId)) {
+    private ResponseEntity<BookingDto> checkBookerAndOwner(Long userId, Long bookingId,
+                                                           Optional<BookingDetails> details) {
+        if (details.isEmpty()) {
+            log.warn("Бронирование id = {} не найдено", bookingId);
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        Long bookerId = bookingRepository
-                .findById(bookingId)
-                .get()
-                .getBookerId();
-        Long ownerId = itemRepository
-                .findById(bookingRepository
-                        .findById(bookingId)
-                        .get().getItemId())
-                .get().getOwnerId();
+        Long bookerId = details.get().getBooking().getBookerId();
+        Long ownerId = details.get().getOwnerId();
         //проверка, что пользователь является владельцем вещи или автором бронирования
         if (!bookerId.equals(userId) && !ownerId.equals(userId)) {
             log.warn("Пользователь id = {} не является владельцем предмета или автором бронирования", userId);
@@ -305,30 +619,20 @@ public class BookingServiceImpl implements BookingService {
         return null;
     }
 
+    // метод для преобразования найденного бронирования в DTO
+    private BookingDto getBookingDto(BookingDetails details) {
+        Booking booking = details.getBooking();
+        return BookingMapper.toBookingDto(booking,
+                new BookingDto.Item(booking.getItemId(), details.getItemName()),
+                new BookingDto.Booker(booking.getBookerId()));
+    }
+
     private Boolean checkUserById(Long userId) {
         //проверка существования пользователя
-        if (userRepository.findById(userId).isEmpty()) {
+        if (userCache.findById(userId).isEmpty()) {
             log.warn("Пользователь с id = {} не найден", userId);
             return true;
         }
         return false;
     }
-
-    private Boolean checkItemById(Long itemId) {
-        //проверка существования предмета
-        if (itemRepository.findById(itemId).isEmpty()) {
-            log.warn("Предмет с id = {} не найден", itemId);
-            return true;
-        }
-        return false;
-    }
-
-    private Boolean checkBookingById(Long bookingId) {
-        // проверка существование бронирование по id
-        if (bookingRepository.findById(bookingId).isEmpty()) {
-            log.warn("Бронирование id = {} не найдено", bookingId);
-            return true;
-        }
-        return false;
-    }
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO с набором бронирований для смены статуса: список id или все ожидающие бронирования вещи itemId
+ */
+@Getter
+@Setter
+public class BookingStatusBatchDto {
+    private List<Long> bookingIds;
+    private Long itemId;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.status.Status;
+
+/**
+ * DTO с результатом смены статуса одного бронирования из набора
+ */
+@Getter
+@Setter
+public class BookingStatusResultDto {
+    private Long bookingId;
+    private int status; // HTTP-статус, который получил бы запрос на смену статуса только этого бронирования
+    private String error;
+    private Status bookingStatus; // новый статус бронирования, если он был назначен
+}
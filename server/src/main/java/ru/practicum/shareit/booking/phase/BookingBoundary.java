@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.phase;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция с датами начала и окончания бронирования, на которые планируется смена его фазы
+ */
+public interface BookingBoundary {
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
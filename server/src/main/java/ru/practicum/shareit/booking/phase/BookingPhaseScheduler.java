@@ -0,0 +1,119 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Планировщик, переводящий бронирования по фазам FUTURE -> CURRENT -> PAST по мере наступления дат.
+ * Границы, наступающие в пределах горизонта shareit.booking-phase.horizon, хранятся в очереди с приоритетом
+ * по времени, каждый такт обновляет только наступившие границы по id. При перезагрузке очереди
+ * пропущенные переходы (например, за время простоя) применяются индексированными запросами по датам.
+ * Переходы вместе со счетчиками фаз в статистике вещей выполняет BookingPhaseUpdater
+ */
+@Slf4j
+@Component
+public class BookingPhaseScheduler {
+    private final BookingRepository bookingRepository;
+    private final BookingPhaseUpdater bookingPhaseUpdater;
+    private final Duration horizon;
+    private final PriorityQueue<Boundary> boundaries = new PriorityQueue<>(Comparator.comparing(Boundary::getAt));
+    private LocalDateTime loadedUntil;
+
+    public BookingPhaseScheduler(BookingRepository bookingRepository,
+                                 BookingPhaseUpdater bookingPhaseUpdater,
+                                 @Value("${shareit.booking-phase.horizon:10m}") Duration horizon) {
+        this.bookingRepository = bookingRepository;
+        this.bookingPhaseUpdater = bookingPhaseUpdater;
+        this.horizon = horizon;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-phase.tick-millis:1000}")
+    public void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        if (loadedUntil == null || !now.plus(horizon.dividedBy(2)).isBefore(loadedUntil)) {
+            reload(now);
+        }
+        Map<Phase, List<Long>> due = new EnumMap<>(Phase.class);
+        synchronized (boundaries) {
+            while (!boundaries.isEmpty() && !boundaries.peek().getAt().isAfter(now)) {
+                Boundary boundary = boundaries.poll();
+                due.computeIfAbsent(boundary.getPhase(), phase -> new ArrayList<>()).add(boundary.getBookingId());
+            }
+        }
+        // сначала начавшиеся, затем завершившиеся: короткая бронь может пройти обе границы за один такт
+        if (due.containsKey(Phase.CURRENT)) {
+            bookingPhaseUpdater.advance(due.get(Phase.CURRENT), List.of(Phase.FUTURE), Phase.CURRENT);
+        }
+        if (due.containsKey(Phase.PAST)) {
+            bookingPhaseUpdater.advance(due.get(Phase.PAST), List.of(Phase.FUTURE, Phase.CURRENT), Phase.PAST);
+        }
+    }
+
+    // Метод для постановки в очередь границ нового бронирования после фиксации транзакции
+    public void register(Booking booking) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(booking.getId(), booking.getStart(), booking.getEnd());
+                }
+            });
+        } else {
+            schedule(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+    }
+
+    private void reload(LocalDateTime now) {
+        LocalDateTime until = now.plus(horizon);
+        int past = bookingPhaseUpdater.advanceEndedBefore(now);
+        int current = bookingPhaseUpdater.advanceStartedBefore(now);
+        if (past > 0 || current > 0) {
+            log.info("Фазы бронирований догнаны: завершилось {}, началось {}", past, current);
+        }
+        synchronized (boundaries) {
+            boundaries.clear();
+            loadedUntil = until;
+            bookingRepository.findBoundariesBefore(until)
+                    .forEach(boundary -> schedule(boundary.getId(), boundary.getStart(), boundary.getEnd()));
+        }
+    }
+
+    private void schedule(Long bookingId, LocalDateTime start, LocalDateTime end) {
+        synchronized (boundaries) {
+            if (loadedUntil == null) {
+                return;
+            }
+            if (start.isBefore(loadedUntil)) {
+                boundaries.add(new Boundary(start, bookingId, Phase.CURRENT));
+            }
+            if (end.isBefore(loadedUntil)) {
+                boundaries.add(new Boundary(end, bookingId, Phase.PAST));
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Boundary {
+        private final LocalDateTime at;
+        private final Long bookingId;
+        private final Phase phase; // фаза, в которую бронирование переходит в момент at
+    }
+}
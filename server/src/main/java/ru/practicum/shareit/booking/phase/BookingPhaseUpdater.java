@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Класс, переводящий бронирования в следующую фазу вместе со счетчиками фаз в статистике их вещей.
+ * Строки бронирований блокируются по порядку id и переводятся только из своей текущей фазы,
+ * поэтому повторный или параллельный перевод не учитывается в счетчиках дважды
+ */
+@Component
+@Setter(onMethod_ = @Autowired)
+public class BookingPhaseUpdater {
+    private BookingRepository bookingRepository;
+    private ItemBookingStatsRepository itemBookingStatsRepository;
+
+    // Метод для перевода бронирований с указанными id из фаз fromPhases в фазу phase
+    @Transactional
+    public int advance(Collection<Long> ids, Collection<Phase> fromPhases, Phase phase) {
+        return apply(bookingRepository.findAllByIdAndPhaseInForUpdate(ids, fromPhases), phase);
+    }
+
+    // Метод для перевода в PAST всех бронирований, завершившихся до момента now
+    @Transactional
+    public int advanceEndedBefore(LocalDateTime now) {
+        return apply(bookingRepository.findAllEndedBeforeForUpdate(now), Phase.PAST);
+    }
+
+    // Метод для перевода в CURRENT всех еще не начавшихся по фазе бронирований, начавшихся до момента now
+    @Transactional
+    public int advanceStartedBefore(LocalDateTime now) {
+        return apply(bookingRepository.findAllStartedBeforeForUpdate(now), Phase.CURRENT);
+    }
+
+    private int apply(List<Booking> bookings, Phase phase) {
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>();
+        // изменения счетчиков по вещам в порядке id, как при смене статусов
+        Map<Long, Map<Phase, Long>> changesByItem = new TreeMap<>();
+        for (Booking booking : bookings) {
+            ids.add(booking.getId());
+            Map<Phase, Long> change = changesByItem.computeIfAbsent(booking.getItemId(),
+                    id -> new EnumMap<>(Phase.class));
+            change.merge(booking.getPhase(), -1L, Long::sum);
+            change.merge(phase, 1L, Long::sum);
+        }
+        bookingRepository.updatePhase(ids, phase);
+        changesByItem.forEach((itemId, change) -> itemBookingStatsRepository.addPhaseCounts(itemId,
+                change.getOrDefault(Phase.FUTURE, 0L),
+                change.getOrDefault(Phase.CURRENT, 0L),
+                change.getOrDefault(Phase.PAST, 0L)));
+        return ids.size();
+    }
+}
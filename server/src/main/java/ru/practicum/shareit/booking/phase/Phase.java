@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.phase;
+
+import java.time.LocalDateTime;
+
+public enum Phase {
+    FUTURE, // бронирование еще не началось
+    CURRENT, // бронирование идет в данный момент
+    PAST; // бронирование завершилось
+
+    // Метод для вычисления фазы бронирования на указанный момент времени
+    public static Phase at(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (end.isBefore(now)) {
+            return PAST;
+        }
+        if (start.isBefore(now)) {
+            return CURRENT;
+        }
+        return FUTURE;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.booking.stats;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * POJO класс, описывающий накопленную статистику бронирований вещи.
+ * Счетчики статусов обновляются при создании бронирования и смене его статуса,
+ * счетчики фаз - при создании бронирования и переходе его в следующую фазу.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Table(name = "item_booking_stats")
+public class ItemBookingStats {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private long waiting; // количество бронирований, ожидающих подтверждения
+
+    private long approved; // количество подтвержденных бронирований
+
+    private long rejected; // количество отклоненных бронирований
+
+    @Column(name = "approved_seconds")
+    private long approvedSeconds; // суммарная продолжительность подтвержденных бронирований в секундах
+
+    @Column(name = "phase_future")
+    private long phaseFuture; // количество еще не начавшихся бронирований
+
+    @Column(name = "phase_current")
+    private long phaseCurrent; // количество идущих бронирований
+
+    @Column(name = "phase_past")
+    private long phasePast; // количество завершившихся бронирований
+
+    @Column(name = "bookings_version")
+    private long bookingsVersion; // увеличивается при каждой смене статуса бронирований, используется для ETag
+
+    @Column(name = "comments_version")
+    private long commentsVersion; // увеличивается при новых отзывах и изменении их авторов, используется для ETag
+
+    @Column(name = "first_approved_start")
+    private LocalDateTime firstApprovedStart; // начало самого раннего подтвержденного бронирования
+
+    @Column(name = "last_approved_end")
+    private LocalDateTime lastApprovedEnd; // окончание самого позднего подтвержденного бронирования
+
+    public ItemBookingStats(Long itemId) {
+        this.itemId = itemId;
+    }
+}
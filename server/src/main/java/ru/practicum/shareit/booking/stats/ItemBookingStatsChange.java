@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking.stats;
+
+import lombok.Getter;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.status.Status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Класс, накапливающий изменения счетчиков статистики одной вещи при смене статусов ее бронирований
+ */
+@Getter
+public class ItemBookingStatsChange {
+    private long waiting;
+    private long approved;
+    private long rejected;
+    private long approvedSeconds;
+    private LocalDateTime firstApprovedStart; // начало самого раннего вновь подтвержденного бронирования
+    private LocalDateTime lastApprovedEnd; // окончание самого позднего вновь подтвержденного бронирования
+    private boolean approvalRemoved; // подтверждение хотя бы одного бронирования отменено, период нужно пересчитать
+
+    // Метод для учета смены статуса бронирования со статуса from на статус to
+    public void add(Booking booking, Status from, Status to) {
+        if (from == to) {
+            return;
+        }
+        long seconds = Duration.between(booking.getStart(), booking.getEnd()).getSeconds();
+        count(from, -1, seconds);
+        count(to, 1, seconds);
+        if (from == Status.APPROVED) {
+            approvalRemoved = true;
+        }
+        if (to == Status.APPROVED) {
+            if (firstApprovedStart == null || booking.getStart().isBefore(firstApprovedStart)) {
+                firstApprovedStart = booking.getStart();
+            }
+            if (lastApprovedEnd == null || booking.getEnd().isAfter(lastApprovedEnd)) {
+                lastApprovedEnd = booking.getEnd();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return waiting == 0 && approved == 0 && rejected == 0 && approvedSeconds == 0 && firstApprovedStart == null
+                && !approvalRemoved;
+    }
+
+    private void count(Status status, int sign, long seconds) {
+        switch (status) {
+            case WAITING:
+                waiting += sign;
+                break;
+            case APPROVED:
+                approved += sign;
+                approvedSeconds += sign * seconds;
+                break;
+            case REJECTED:
+                rejected += sign;
+                break;
+            default:
+                break;
+        }
+    }
+}
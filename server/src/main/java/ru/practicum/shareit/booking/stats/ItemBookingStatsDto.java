@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.item.ItemFoundDto;
+
+/**
+ * DTO со сводкой по бронированиям одной вещи для панели владельца
+ */
+@Getter
+@Setter
+public class ItemBookingStatsDto {
+    private Long itemId;
+    private String itemName;
+    private long waiting;
+    private long approved;
+    private long rejected;
+    private long past;
+    private long current;
+    private long future;
+    private ItemFoundDto.LastBooking lastBooking;
+    private ItemFoundDto.NextBooking nextBooking;
+    private double utilization; // доля занятого времени между первым и последним подтвержденным бронированием, %
+    private double revenueDays; // суммарная продолжительность подтвержденных бронирований в днях
+}
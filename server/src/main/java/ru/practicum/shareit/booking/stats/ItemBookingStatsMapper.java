@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking.stats;
+
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemFoundDto;
+
+import java.time.Duration;
+
+/**
+ * Класс, который преобразовывает статистику бронирований вещи в DTO-объект
+ */
+public class ItemBookingStatsMapper {
+    private static final double SECONDS_IN_DAY = 24 * 60 * 60;
+
+    public static ItemBookingStatsDto toItemBookingStatsDto(Item item, ItemBookingStats stats,
+                                                            Booking lastBooking, Booking nextBooking) {
+        ItemBookingStatsDto statsDto = new ItemBookingStatsDto();
+        statsDto.setItemId(item.getId());
+        statsDto.setItemName(item.getName());
+        if (stats != null) {
+            statsDto.setWaiting(stats.getWaiting());
+            statsDto.setApproved(stats.getApproved());
+            statsDto.setRejected(stats.getRejected());
+            statsDto.setRevenueDays(round(stats.getApprovedSeconds() / SECONDS_IN_DAY));
+            statsDto.setUtilization(getUtilization(stats));
+            statsDto.setPast(stats.getPhasePast());
+            statsDto.setCurrent(stats.getPhaseCurrent());
+            // в будущих, как и в состоянии FUTURE списков бронирований, учитываются и идущие
+            statsDto.setFuture(stats.getPhaseFuture() + stats.getPhaseCurrent());
+        }
+        if (lastBooking != null) {
+            statsDto.setLastBooking(new ItemFoundDto.LastBooking(lastBooking));
+        }
+        if (nextBooking != null) {
+            statsDto.setNextBooking(new ItemFoundDto.NextBooking(nextBooking));
+        }
+        return statsDto;
+    }
+
+    // подтвержденные бронирования вещи не пересекаются: создание и повторное подтверждение проверяют пересечения
+    // под блокировкой строки вещи, поэтому их сумма не превышает весь период. Ограничение 100% оставлено
+    // для пересекающихся бронирований, созданных до этих проверок
+    private static double getUtilization(ItemBookingStats stats) {
+        if (stats.getFirstApprovedStart() == null || stats.getLastApprovedEnd() == null) {
+            return 0;
+        }
+        long periodSeconds = Duration.between(stats.getFirstApprovedStart(), stats.getLastApprovedEnd()).getSeconds();
+        if (periodSeconds <= 0) {
+            return 0;
+        }
+        return round(Math.min(100.0, stats.getApprovedSeconds() * 100.0 / periodSeconds));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.stats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface ItemBookingStatsRepository extends JpaRepository<ItemBookingStats, Long> {
+
+    // Метод для учета новых бронирований, ожидающих подтверждения и еще не начавшихся
+    @Modifying
+    @Query("update ItemBookingStats s set s.waiting = s.waiting + :count, s.phaseFuture = s.phaseFuture + :count" +
+            " where s.itemId = :itemId")
+    int addWaiting(@Param("itemId") Long itemId, @Param("count") long count);
+
+    // Метод для изменения счетчиков по статусам на накопленные величины
+    @Modifying
+    @Query("update ItemBookingStats s set s.waiting = s.waiting + :waiting, s.approved = s.approved + :approved," +
+            " s.rejected = s.rejected + :rejected, s.approvedSeconds = s.approvedSeconds + :approvedSeconds," +
+            " s.bookingsVersion = s.bookingsVersion + 1" +
+            " where s.itemId = :itemId")
+    int addCounts(@Param("itemId") Long itemId,
+                  @Param("waiting") long waiting,
+                  @Param("approved") long approved,
+                  @Param("rejected") long rejected,
+                  @Param("approvedSeconds") long approvedSeconds);
+
+    // Метод для изменения счетчиков по фазам при переходе бронирований в следующую фазу
+    @Modifying
+    @Query("update ItemBookingStats s set s.phaseFuture = s.phaseFuture + :future," +
+            " s.phaseCurrent = s.phaseCurrent + :current, s.phasePast = s.phasePast + :past" +
+            " where s.itemId = :itemId")
+    int addPhaseCounts(@Param("itemId") Long itemId,
+                       @Param("future") long future,
+                       @Param("current") long current,
+                       @Param("past") long past);
+
+    // Метод для расширения периода подтвержденных бронирований, когда подтверждения только добавляются
+    @Modifying
+    @Query("update ItemBookingStats s" +
+            " set s.firstApprovedStart = case when s.firstApprovedStart is null or s.firstApprovedStart > :start" +
+            " then :start else s.firstApprovedStart end," +
+            " s.lastApprovedEnd = case when s.lastApprovedEnd is null or s.lastApprovedEnd < :end" +
+            " then :end else s.lastApprovedEnd end" +
+            " where s.itemId = :itemId")
+    int extendApprovedPeriod(@Param("itemId") Long itemId,
+                             @Param("start") LocalDateTime start,
+                             @Param("end") LocalDateTime end);
+
+    // Метод для пересчета периода подтвержденных бронирований после отмены подтверждения.
+    // Читает только подтвержденные бронирования одной вещи по индексу (item_id, status, start_date_time)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE item_booking_stats SET" +
+            " first_approved_start = (SELECT MIN(b.start_date_time) FROM bookings b" +
+            " WHERE b.item_id = :itemId AND b.status = 'APPROVED')," +
+            " last_approved_end = (SELECT MAX(b.end_date_time) FROM bookings b" +
+            " WHERE b.item_id = :itemId AND b.status = 'APPROVED')" +
+            " WHERE item_id = :itemId",
+            nativeQuery = true)
+    int recomputeApprovedPeriod(@Param("itemId") Long itemId);
+
+    // Метод для учета нового отзыва о вещи
+    @Modifying
+    @Query("update ItemBookingStats s set s.commentsVersion = s.commentsVersion + 1 where s.itemId = :itemId")
+    int incrementCommentsVersion(@Param("itemId") Long itemId);
+
+    // Метод для учета изменения автора отзывов во всех вещах, о которых он оставлял отзывы
+    @Modifying
+    @Query(value = "UPDATE item_booking_stats SET comments_version = comments_version + 1" +
+            " WHERE item_id IN (SELECT c.item_id FROM comments c WHERE c.author_id = :authorId)",
+            nativeQuery = true)
+    int incrementCommentsVersionByAuthorId(@Param("authorId") Long authorId);
+
+    // Метод для создания пустой статистики сразу для нескольких новых вещей
+    @Modifying
+    @Query(value = "INSERT INTO item_booking_stats (item_id) SELECT i.id FROM items i WHERE i.id IN (:itemIds)",
+            nativeQuery = true)
+    int createForItems(@Param("itemIds") Collection<Long> itemIds);
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -32,4 +33,11 @@ public class ErrorHandler {
     public Map<String, String> handleForbiddenException(final ForbiddenException e) {
         return Map.of("error", e.getMessage());
     }
+
+    // параллельный запрос успел изменить ту же версию вещи или пользователя, клиент может повторить запрос
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleOptimisticLockingFailure(final OptimisticLockingFailureException e) {
+        return Map.of("error", "Объект был изменен параллельным запросом");
+    }
 }
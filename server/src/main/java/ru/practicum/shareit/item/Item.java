@@ -18,7 +18,8 @@ import java.util.Objects;
 @Table(name = "items")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -33,6 +34,9 @@ public class Item {
     @Column(name = "request_id")
     private Long requestId;
 
+    @Version
+    private long version; // увеличивается при каждом изменении, используется для ETag
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
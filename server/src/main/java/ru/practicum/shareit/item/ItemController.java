@@ -3,9 +3,14 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.HeaderKey;
 import ru.practicum.shareit.item.comment.Comment;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Класс-контроллер, который предназначен для обработки запросов и возвращение результата.
  */
@@ -14,6 +19,7 @@ import ru.practicum.shareit.item.comment.Comment;
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
 
     @PostMapping
     public ResponseEntity<Object> createNewItem(@RequestBody ItemDto itemDto,
@@ -21,6 +27,13 @@ public class ItemController {
         return itemService.create(itemDto, userId);
     }
 
+    @PostMapping(value = "/import", consumes = ItemImportService.NDJSON)
+    public void importItems(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                            InputStream items,
+                            HttpServletResponse response) throws IOException {
+        itemImportService.importItems(userId, items, response);
+    }
+
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> updateItem(@RequestBody ItemDto itemDto,
                                              @RequestHeader(HeaderKey.USER_KEY) Long userId,
@@ -37,7 +50,13 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ResponseEntity<Object> findItemByItemId(@RequestHeader(HeaderKey.USER_KEY) Long userId,
-                                                   @PathVariable("itemId") Long itemId) {
+                                                   @PathVariable("itemId") Long itemId,
+                                                   WebRequest webRequest) {
+        // Если карточка не изменилась с версии клиента, отвечаем 304 без ее сборки
+        String eTag = itemService.getItemETag(userId, itemId);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         return itemService.findByUserIdAndItemId(userId, itemId);
     }
 
@@ -55,4 +74,12 @@ public class ItemController {
                                                 @PathVariable("itemId") Long itemId) {
         return itemService.addComment(userId, itemId, comment);
     }
+
+    @GetMapping("/{itemId}/comment")
+    public ResponseEntity<Object> findComments(@RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                               @PathVariable("itemId") Long itemId,
+                                               @RequestParam(name = "afterId", defaultValue = "0") Long afterId,
+                                               @RequestParam(name = "size", defaultValue = "100") Integer size) {
+        return itemService.findComments(userId, itemId, afterId, size);
+    }
 }
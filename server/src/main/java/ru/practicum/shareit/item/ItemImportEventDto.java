@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO одной строки ответа на импорт вещей: ошибка в строке файла, промежуточный или итоговый результат
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemImportEventDto {
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+    private Long line; // номер строки файла с ошибкой
+    private String error;
+    private Long processed; // количество обработанных строк
+    private Long imported; // количество сохраненных вещей
+    private Long failed; // количество строк с ошибками
+    private Long errorsOmitted; // количество ошибок сверх лимита, не выведенных отдельными строками
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ItemImportService {
+    String NDJSON = "application/x-ndjson";
+
+    // Метод для потокового импорта вещей пользователя из NDJSON с выводом ошибок и прогресса в ответ
+    void importItems(Long userId, InputStream items, HttpServletResponse response) throws IOException;
+}
@@ -0,0 +1,273 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.user.UserCache;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Класс-сервис для импорта вещей из NDJSON: по одной вещи в строке.
+ * Файл читается построчно, строки сохраняются пачками по BATCH_SIZE в отдельных транзакциях,
+ * поэтому память не зависит от размера файла, а следующая пачка читается только после записи предыдущей
+ */
+@Service
+@Setter(onMethod_ = @Autowired)
+@Slf4j
+public class ItemImportServiceImpl implements ItemImportService {
+    private static final int BATCH_SIZE = 1000;
+    private static final int PROGRESS_EVERY_BATCHES = 10;
+    private static final long PROGRESS_INTERVAL_MILLIS = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 4000;
+
+    private ItemRepository itemRepository;
+    private ItemRequestRepository itemRequestRepository;
+    private ItemBookingStatsRepository itemBookingStatsRepository;
+    private UserCache userCache;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+
+    @Override
+    public void importItems(Long userId, InputStream items, HttpServletResponse response) throws IOException {
+        if (userCache.findById(userId).isEmpty()) {
+            log.warn("Пользователь с id = {} не найден", userId);
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ImportRun run = new ImportRun(userId, response.getOutputStream());
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(items, StandardCharsets.UTF_8));
+        List<ImportRow> batch = new ArrayList<>(BATCH_SIZE);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            run.processed++;
+            ItemDto itemDto;
+            try {
+                itemDto = objectMapper.readValue(line, ItemDto.class);
+            } catch (JsonProcessingException e) {
+                run.fail(lineNumber, "Строка не является JSON-объектом вещи");
+                continue;
+            }
+            String error = validate(itemDto);
+            if (error != null) {
+                run.fail(lineNumber, error);
+                continue;
+            }
+            batch.add(new ImportRow(lineNumber, itemDto));
+            if (batch.size() == BATCH_SIZE) {
+                saveBatch(run, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            saveBatch(run, batch);
+        }
+        run.write(run.getResult(ItemImportEventDto.SUMMARY));
+        log.info("Импорт вещей пользователя id = {} завершен: строк {}, сохранено {}, с ошибками {}",
+                userId, run.processed, run.imported, run.failed);
+    }
+
+    // Метод для сохранения пачки строк: занятые названия и существующие запросы проверяются одним запросом каждые
+    private void saveBatch(ImportRun run, List<ImportRow> batch) throws IOException {
+        Set<String> names = new HashSet<>();
+        Set<Long> requestIds = new HashSet<>();
+        for (ImportRow row : batch) {
+            names.add(row.itemDto.getName());
+            if (row.itemDto.getRequestId() != null) {
+                requestIds.add(row.itemDto.getRequestId());
+            }
+        }
+        Set<String> takenNames = new HashSet<>(itemRepository.findNamesByOwnerIdAndNameIn(run.userId, names));
+        Set<Long> existingRequestIds = new HashSet<>();
+        if (!requestIds.isEmpty()) {
+            existingRequestIds.addAll(itemRequestRepository.findIdsByIdIn(requestIds));
+        }
+
+        List<ImportRow> rows = new ArrayList<>();
+        for (ImportRow row : batch) {
+            // UQ_OWNER_ITEM_NAME: название уникально среди вещей владельца, включая строки этого же файла
+            if (!takenNames.add(row.itemDto.getName())) {
+                run.fail(row.line, "Вещь с названием " + row.itemDto.getName() + " уже есть у пользователя");
+            } else if (row.itemDto.getRequestId() != null && !existingRequestIds.contains(row.itemDto.getRequestId())) {
+                run.fail(row.line, "Запрос с id = " + row.itemDto.getRequestId() + " не найден");
+            } else {
+                rows.add(row);
+            }
+        }
+        try {
+            save(run.userId, rows);
+            run.imported += rows.size();
+        } catch (DataIntegrityViolationException e) {
+            // название заняли или запрос удалили параллельно: строки пачки сохраняются по одной,
+            // чтобы найти конфликтующие
+            for (ImportRow row : rows) {
+                try {
+                    save(run.userId, List.of(row));
+                    run.imported++;
+                } catch (DataIntegrityViolationException rowException) {
+                    run.fail(row.line, getIntegrityError(row, rowException));
+                }
+            }
+        }
+        run.batches++;
+        // прогресс выводится каждые PROGRESS_EVERY_BATCHES пачек, но не реже раза в PROGRESS_INTERVAL_MILLIS,
+        // чтобы соединение не простаивало дольше таймаута чтения у шлюза
+        if (run.batches % PROGRESS_EVERY_BATCHES == 0
+                || System.currentTimeMillis() - run.lastWriteMillis >= PROGRESS_INTERVAL_MILLIS) {
+            run.write(run.getResult(ItemImportEventDto.PROGRESS));
+        }
+    }
+
+    private void save(Long userId, List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Item> items = new ArrayList<>();
+            for (ImportRow row : rows) {
+                Item item = ItemMapper.toItem(row.itemDto);
+                item.setId(null);
+                item.setOwnerId(userId);
+                items.add(item);
+            }
+            List<Long> itemIds = new ArrayList<>();
+            itemRepository.saveAllAndFlush(items).forEach(item -> itemIds.add(item.getId()));
+            itemBookingStatsRepository.createForItems(itemIds);
+            // сохраненные вещи больше не нужны, контекст очищается, чтобы память не росла от пачки к пачке;
+            // при откате транзакции контекст очищает сам менеджер транзакций
+            entityManager.clear();
+        });
+    }
+
+    // Метод для текста ошибки строки по нарушенному ограничению базы
+    private String getIntegrityError(ImportRow row, DataIntegrityViolationException e) {
+        // при пакетной вставке Hibernate не извлекает имя ограничения, поэтому оно ищется и в тексте ошибок драйвера;
+        // H2 пишет имя заглавными и со схемой, PostgreSQL строчными
+        StringBuilder details = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException
+                    && ((ConstraintViolationException) cause).getConstraintName() != null) {
+                details.append(((ConstraintViolationException) cause).getConstraintName()).append(' ');
+            } else if (cause instanceof SQLException) {
+                details.append(cause.getMessage()).append(' ');
+            }
+        }
+        String constraint = details.toString().toUpperCase();
+        if (constraint.contains("UQ_OWNER_ITEM_NAME")) {
+            return "Вещь с названием " + row.itemDto.getName() + " уже есть у пользователя";
+        }
+        if (constraint.contains("FK_ITEM_ON_REQUEST")) {
+            return "Запрос с id = " + row.itemDto.getRequestId() + " не найден";
+        }
+        return "Вещь не сохранена: нарушено ограничение целостности данных";
+    }
+
+    // Метод для проверки строки по тем же правилам, что и при создании вещи через шлюз
+    private String validate(ItemDto itemDto) {
+        if (itemDto == null) {
+            return "Строка не является JSON-объектом вещи";
+        }
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            return "Не указано название вещи";
+        }
+        if (itemDto.getName().length() > MAX_NAME_LENGTH) {
+            return "Название вещи длиннее " + MAX_NAME_LENGTH + " символов";
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            return "Не указано описание вещи";
+        }
+        if (itemDto.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "Описание вещи длиннее " + MAX_DESCRIPTION_LENGTH + " символов";
+        }
+        if (itemDto.getAvailable() == null) {
+            return "Не указана доступность вещи";
+        }
+        return null;
+    }
+
+    @AllArgsConstructor
+    private static class ImportRow {
+        private final long line; // номер строки в файле
+        private final ItemDto itemDto;
+    }
+
+    // Состояние одного импорта: счетчики и поток ответа
+    private class ImportRun {
+        private final Long userId;
+        private final OutputStream out;
+        private long processed;
+        private long imported;
+        private long failed;
+        private long batches;
+        private long lastWriteMillis;
+
+        ImportRun(Long userId, OutputStream out) {
+            this.userId = userId;
+            this.out = out;
+            this.lastWriteMillis = System.currentTimeMillis();
+        }
+
+        // ошибки выводятся до MAX_REPORTED_ERRORS, остальные только считаются
+        void fail(long line, String error) throws IOException {
+            failed++;
+            if (failed <= MAX_REPORTED_ERRORS) {
+                ItemImportEventDto event = new ItemImportEventDto();
+                event.setType(ItemImportEventDto.ERROR);
+                event.setLine(line);
+                event.setError(error);
+                write(event);
+            }
+        }
+
+        ItemImportEventDto getResult(String type) {
+            ItemImportEventDto event = new ItemImportEventDto();
+            event.setType(type);
+            event.setProcessed(processed);
+            event.setImported(imported);
+            event.setFailed(failed);
+            if (failed > MAX_REPORTED_ERRORS) {
+                event.setErrorsOmitted(failed - MAX_REPORTED_ERRORS);
+            }
+            return event;
+        }
+
+        void write(ItemImportEventDto event) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+            lastWriteMillis = System.currentTimeMillis();
+        }
+    }
+}
@@ -1,35 +1,66 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    //Метод для поиска предмета по тексту
+    //Метод для поиска предмета по тексту, совпадения в названии выводятся первыми
     @Query("select it from Item as it" +
             " where (upper(it.name) like concat('%', upper(:text), '%' ) " +
             " or upper(it.description) like concat('%', upper(:text), '%' ))" +
-            " and it.available = true")
-    Page<Item> findItemsByText(@Param("text") String text, Pageable pageable);
-
-
-    @Query("select it from Item as it" +
-            " where (upper(it.name) like concat('%', upper(:text), '%' ) " +
-            " or upper(it.description) like concat('%', upper(:text), '%' ))" +
-            " and it.available = true")
-    List<Item> findItemsByText(@Param("text") String text);
+            " and it.available = true" +
+            " order by case when upper(it.name) like concat('%', upper(:text), '%' ) then 0 else 1 end, it.id")
+    List<Item> findItemsByText(@Param("text") String text, Pageable pageable);
 
     //Метод для поиска предметов по id владельца
-    Page<Item> findAllByOwnerId(Long userId, Pageable pageable);
+    List<Item> findAllByOwnerId(Long userId, Pageable pageable);
 
     List<Item> findAllByOwnerId(Long userId);
 
 
     //Метод для поиска предмета по id запроса
     List<Item> findAllByRequestId(Long requestId);
+
+    //Метод для поиска предметов сразу по нескольким id запросов
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    //Метод для поиска предмета с блокировкой строки до конца транзакции
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select it from Item as it where it.id = :itemId")
+    Optional<Item> findByIdForUpdate(@Param("itemId") Long itemId);
+
+    //Метод для поиска нескольких предметов с блокировкой строк до конца транзакции, строки блокируются по порядку id
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select it from Item as it where it.id in :itemIds order by it.id")
+    List<Item> findAllByIdForUpdate(@Param("itemIds") Collection<Long> itemIds);
+
+    //Метод для получения версии предмета и версий его аренд и отзывов одним чтением по первичным ключам
+    @Query("select it.ownerId as ownerId, it.version as version, s.bookingsVersion as bookingsVersion," +
+            " s.commentsVersion as commentsVersion, s.phaseCurrent as phaseCurrent, s.phasePast as phasePast" +
+            " from Item as it" +
+            " left join ItemBookingStats as s on s.itemId = it.id" +
+            " where it.id = :itemId")
+    Optional<ItemStamp> findStampById(@Param("itemId") Long itemId);
+
+    //Метод для получения сводки по предметам, созданным под запрос: количество, последний id и сумма версий
+    @Query("select concat(cast(count(it.id) as string), '-', cast(coalesce(max(it.id), 0) as string), '-'," +
+            " cast(coalesce(sum(it.version), 0) as string))" +
+            " from ItemRequest as r" +
+            " left join Item as it on it.requestId = r.id" +
+            " where r.id = :requestId" +
+            " group by r.id")
+    Optional<String> findRequestItemsStamp(@Param("requestId") Long requestId);
+
+    // Метод для поиска названий, уже занятых среди вещей владельца
+    @Query("select it.name from Item as it where it.ownerId = :ownerId and it.name in :names")
+    List<String> findNamesByOwnerIdAndNameIn(@Param("ownerId") Long ownerId, @Param("names") Collection<String> names);
 }
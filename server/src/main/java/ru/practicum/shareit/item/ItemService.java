@@ -13,12 +13,18 @@ public interface ItemService {
     // метод для поиска предмета по id пользователя и по id предмета
     ResponseEntity<Object> findByUserIdAndItemId(Long userId, Long itemId);
 
+    // метод для вычисления ETag карточки предмета без ее сборки, null если пользователь или предмет не найдены
+    String getItemETag(Long userId, Long itemId);
+
     // метод для поиска предметов по id пользователя
     ResponseEntity<Object> findAllItemsByUserId(Long userId, Integer from, Integer size);
 
     // метод для создания отзыва к предмету
     ResponseEntity<Object> addComment(Long userId, Long itemId, Comment comment);
 
+    // метод для постраничного вывода отзывов к предмету, начиная после отзыва afterId
+    ResponseEntity<Object> findComments(Long userId, Long itemId, Long afterId, Integer size);
+
     // метод для поиска предмета по тексту
     ResponseEntity<Object> findItemByText(Long userId, String text, Integer from, Integer size);
 
@@ -11,17 +11,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.comment.CommentMapper;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.status.Status;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Класс-сервис, который предназначен для реализации основной бизнес-логики.
@@ -30,10 +33,14 @@ import java.util.Map;
 @Setter(onMethod_ = @Autowired)
 @Slf4j
 public class ItemServiceImpl implements ItemService {
+    // Максимальное количество отзывов, выводимых вместе с вещью; остальные запрашиваются отдельно
+    private static final int COMMENTS_LIMIT = 100;
+
     private ItemRepository itemRepository;
-    private UserRepository userRepository;
+    private UserCache userCache;
     private BookingRepository bookingRepository;
     private CommentRepository commentRepository;
+    private ItemBookingStatsRepository itemBookingStatsRepository;
 
     @Transactional
     @Override
@@ -43,7 +50,9 @@ public class ItemServiceImpl implements ItemService {
         }
         Item item = ItemMapper.toItem(itemDto);
         item.setOwnerId(userId);
-        Item answerItem = itemRepository.save(item);
+        // вещь записывается сразу, чтобы вставка строки статистики по ее id прошла без лишнего SELECT от merge
+        Item answerItem = itemRepository.saveAndFlush(item);
+        itemBookingStatsRepository.createForItems(List.of(answerItem.getId()));
         log.info("Вещь id = {} успешно сохранена у пользователя id = {}", answerItem.getId(), userId);
         return ResponseEntity.ok(ItemMapper.toItemDto(answerItem));
     }
@@ -78,17 +87,13 @@ public class ItemServiceImpl implements ItemService {
         }
         Item foundItem = itemRepository.findById(itemId).get();
         log.info("Вещь id = {} успешно найдена", itemId);
-        List<CommentDto> commentsDto = new ArrayList<>();
-        List<Comment> comments = commentRepository.findAllByItemId(itemId);
-        //Перебор всех комментариев по предмету и преобразование их в DTO класс
-        comments.forEach(comment -> commentsDto.add(CommentMapper.toCommentDto(
-                comment,
-                userRepository.findById(comment.getUserId()).get().getName())
-        ));
+        List<CommentDto> commentsDto = getCommentsDto(itemId, 0L, COMMENTS_LIMIT);
         ItemFoundDto result;
         // Если пользователь является владельцем предмета
         if (foundItem.getOwnerId().equals(userId)) {
-            result = getItemFoundDto(foundItem, userId, commentsDto);
+            result = getItemFoundDto(foundItem,
+                    bookingRepository.findTwoBookingByOwnerIdOrderByEndAsc(userId, itemId),
+                    commentsDto);
         } else {
             result = ItemMapper.toItemFoundDto(foundItem,
                     null,
@@ -98,21 +103,51 @@ public class ItemServiceImpl implements ItemService {
         return ResponseEntity.ok(result);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public String getItemETag(Long userId, Long itemId) {
+        if (userCache.findById(userId).isEmpty()) {
+            return null;
+        }
+        Optional<ItemStamp> foundStamp = itemRepository.findStampById(itemId);
+        if (foundStamp.isEmpty()) {
+            return null;
+        }
+        ItemStamp stamp = foundStamp.get();
+        String eTag = itemId + "-" + stamp.getVersion() + "-" + stamp.getCommentsVersion();
+        // Аренды видны только владельцу вещи; последняя и следующая аренда зависят и от начала бронирований,
+        // которое отражают счетчики фаз
+        if (stamp.getOwnerId().equals(userId)) {
+            eTag += "-o-" + stamp.getBookingsVersion() + "-" + stamp.getPhaseCurrent() + "-" + stamp.getPhasePast();
+        }
+        return eTag;
+    }
+
     @Transactional(readOnly = true)
     @Override
     public ResponseEntity<Object> findAllItemsByUserId(Long userId, Integer from, Integer size) {
         if (checkUserById(userId)) {
             return new ResponseEntity<>(getMapBody("Пользователь с id = " + userId + " не найден"), HttpStatus.NOT_FOUND);
         }
-        //если пагинация выходит за список, то изменим ее размер
-        int sizeItems = itemRepository.findAllByOwnerId(userId).size();
-        if (sizeItems < from + size && sizeItems > 0) {
-            size = sizeItems - from;
+        List<Item> items = itemRepository.findAllByOwnerId(userId, PageRequest.of(from, size, Sort.by("id")));
+        List<Long> itemIds = new ArrayList<>();
+        items.forEach(item -> itemIds.add(item.getId()));
+
+        // Две ближайшие аренды и отзывы для всех вещей страницы загружаются одним запросом каждые
+        Map<Long, List<Booking>> bookingsByItem = new HashMap<>();
+        Map<Long, List<CommentDto>> commentsByItem = new HashMap<>();
+        if (!itemIds.isEmpty()) {
+            bookingRepository.findTwoBookingsByItemIdsOrderByEndAsc(itemIds).forEach(booking ->
+                    bookingsByItem.computeIfAbsent(booking.getItemId(), id -> new ArrayList<>()).add(booking));
+            commentRepository.findFirstWithAuthorByItemIdIn(itemIds, COMMENTS_LIMIT).forEach(comment ->
+                    commentsByItem.computeIfAbsent(comment.getItemId(), id -> new ArrayList<>())
+                            .add(CommentMapper.toCommentDto(comment)));
         }
-        List<Item> items = itemRepository.findAllByOwnerId(userId, PageRequest.of(from, size, Sort.by("id"))).getContent();
 
         List<ItemFoundDto> itemsDto = new ArrayList<>();
-        items.forEach(item -> itemsDto.add(getItemFoundDto(item, userId)));
+        items.forEach(item -> itemsDto.add(getItemFoundDto(item,
+                bookingsByItem.getOrDefault(item.getId(), List.of()),
+                commentsByItem.getOrDefault(item.getId(), new ArrayList<>()))));
         log.info("Все вещи успешно найдены у пользователя id = {} с учетом пагинации", userId);
         return ResponseEntity.ok(itemsDto);
     }
@@ -128,11 +163,26 @@ public class ItemServiceImpl implements ItemService {
         comment.setUserId(userId);
         comment.setCreated(LocalDateTime.now());
         Comment answerComment = commentRepository.save(comment);
+        itemBookingStatsRepository.incrementCommentsVersion(itemId);
         log.info("Комментарий id = {} успешно добавлен к предмету id = {}", answerComment.getId(), itemId);
-        CommentDto result = CommentMapper.toCommentDto(answerComment, userRepository.findById(userId).get().getName());
+        CommentDto result = CommentMapper.toCommentDto(answerComment, userCache.findById(userId).get().getName());
         return ResponseEntity.ok(result);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public ResponseEntity<Object> findComments(Long userId, Long itemId, Long afterId, Integer size) {
+        if (checkUserById(userId)) {
+            return new ResponseEntity<>(getMapBody("Пользователь с id = " + userId + " не найден"), HttpStatus.NOT_FOUND);
+        }
+        if (!itemRepository.existsById(itemId)) {
+            log.warn("Вещь id = {} не найдена", itemId);
+            return new ResponseEntity<>(getMapBody("Вещь id = " + itemId + " не найдена"), HttpStatus.NOT_FOUND);
+        }
+        log.info("Отзывы к вещи id = {} успешно найдены после отзыва id = {}", itemId, afterId);
+        return ResponseEntity.ok(getCommentsDto(itemId, afterId, size));
+    }
+
     @Transactional(readOnly = true)
     @Override
     public ResponseEntity<Object> findItemByText(Long userId, String text, Integer from, Integer size) {
@@ -141,51 +191,25 @@ public class ItemServiceImpl implements ItemService {
         }
         if (text.isBlank())
             return ResponseEntity.ok(new ArrayList<>());
-        //если пагинация выходит за список, то изменим ее размер
-        int sizeItems = itemRepository.findItemsByText(text).size();
-        if (sizeItems < from + size && sizeItems > 0) {
-            size = sizeItems - from;
-        }
-        List<Item> items = itemRepository.findItemsByText(text, PageRequest.of(from, size)).getContent();
+        List<Item> items = itemRepository.findItemsByText(text, PageRequest.of(from, size));
 
         log.info("Все вещи успешно найдены по text = '{}' для пользователя id = {}", text, userId);
         return ResponseEntity.ok(ItemMapper.toItemsDto(items));
     }
 
-    // Метод для обработки и возврата инициализированного класса ItemFoundDto
-    private ItemFoundDto getItemFoundDto(Item foundItem, Long userId) {
-        // Найдем две ближайшие аренды
-        List<Booking> bookings = bookingRepository.findTwoBookingByOwnerIdOrderByEndAsc(userId, foundItem.getId());
-        // если получено две аренды: предыдущая и следующая.
-        if (bookings.size() >= 2) {
-            return ItemMapper.toItemFoundDto(foundItem,
-                    new ItemFoundDto.LastBooking(bookings.get(0)),
-                    new ItemFoundDto.NextBooking(bookings.get(1)));
-            // если получена только аренда
-        } else if (bookings.size() == 1) {
-            // если аренда является предыдущей
-            if (bookings.get(0).getStart().isBefore(LocalDateTime.now())) {
-                return ItemMapper.toItemFoundDto(foundItem,
-                        new ItemFoundDto.LastBooking(bookings.get(0)),
-                        null);
-                // если аренда является следующей
-            } else {
-                return ItemMapper.toItemFoundDto(foundItem,
-                        null,
-                        new ItemFoundDto.NextBooking(bookings.get(0)));
-            }
-        } else {
-            return ItemMapper.toItemFoundDto(foundItem,
-                    null,
-                    null);
-        }
+    // Метод для получения отзывов к вещи вместе с именами авторов одним запросом
+    private List<CommentDto> getCommentsDto(Long itemId, Long afterId, int size) {
+        List<CommentDto> commentsDto = new ArrayList<>();
+        commentRepository.findAllWithAuthorByItemId(itemId, afterId, PageRequest.of(0, size))
+                .forEach(comment -> commentsDto.add(CommentMapper.toCommentDto(comment)));
+        return commentsDto;
     }
 
-    private ItemFoundDto getItemFoundDto(Item foundItem, Long userId, List<CommentDto> commentsDto) {
-        // Найдем две ближайшие аренды
-        List<Booking> bookings = bookingRepository.findTwoBookingByOwnerIdOrderByEndAsc(userId, foundItem.getId());
+    // Метод для обработки и возврата инициализированного класса ItemFoundDto
+    // по двум ближайшим подтвержденным арендам, упорядоченным по дате окончания
+    private ItemFoundDto getItemFoundDto(Item foundItem, List<Booking> bookings, List<CommentDto> commentsDto) {
         // если получено две аренды: предыдущая и следующая.
-        if (bookings.size() == 2) {
+        if (bookings.size() >= 2) {
             return ItemMapper.toItemFoundDto(foundItem,
                     new ItemFoundDto.LastBooking(bookings.get(0)),
                     new ItemFoundDto.NextBooking(bookings.get(1)),
@@ -256,7 +280,7 @@ public class ItemServiceImpl implements ItemService {
 
     // Метод для проверки существования пользователя
     private Boolean checkUserById(Long userId) {
-        if (userRepository.findById(userId).isEmpty()) {
+        if (userCache.findById(userId).isEmpty()) {
             log.warn("Пользователь с id = {} не найден", userId);
             return true;
         }
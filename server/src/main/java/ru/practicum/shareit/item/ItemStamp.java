@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item;
+
+/**
+ * Проекция с версией вещи и версиями ее аренд и отзывов из статистики вещи, из которой вычисляется ETag карточки вещи
+ */
+public interface ItemStamp {
+    Long getOwnerId();
+
+    Long getVersion();
+
+    Long getBookingsVersion();
+
+    Long getCommentsVersion();
+
+    Long getPhaseCurrent();
+
+    Long getPhasePast();
+}
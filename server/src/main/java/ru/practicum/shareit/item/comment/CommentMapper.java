@@ -15,4 +15,13 @@ public class CommentMapper {
         commentDto.setCreated(comment.getCreated());
         return commentDto;
     }
+
+    public static CommentDto toCommentDto(CommentWithAuthor comment) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(comment.getId());
+        commentDto.setText(comment.getText());
+        commentDto.setAuthorName(comment.getAuthorName());
+        commentDto.setCreated(comment.getCreated());
+        return commentDto;
+    }
 }
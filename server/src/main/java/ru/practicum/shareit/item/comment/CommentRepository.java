@@ -1,9 +1,35 @@
 package ru.practicum.shareit.item.comment;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemId(Long itemId);
+    // Метод для поиска отзывов предмета с именами авторов, начиная после отзыва afterId
+    @Query("select c.id as id, c.text as text, c.itemId as itemId, u.name as authorName, c.created as created" +
+            " from Comment as c" +
+            " join User as u on u.id = c.userId" +
+            " where c.itemId = :itemId and c.id > :afterId" +
+            " order by c.id")
+    List<CommentWithAuthor> findAllWithAuthorByItemId(@Param("itemId") Long itemId,
+                                                      @Param("afterId") Long afterId,
+                                                      Pageable pageable);
+
+    // Метод для поиска первых limit отзывов каждого из нескольких предметов с именами авторов
+    @Query(value = "SELECT t.ID AS \"id\", t.TEXT AS \"text\", t.ITEM_ID AS \"itemId\"," +
+            " t.NAME AS \"authorName\", t.CREATED AS \"created\" FROM (" +
+            " SELECT c.ID, c.TEXT, c.ITEM_ID, c.CREATED, u.NAME," +
+            " ROW_NUMBER() OVER (PARTITION BY c.ITEM_ID ORDER BY c.ID) AS RN" +
+            " FROM COMMENTS c" +
+            " JOIN USERS u ON u.ID = c.AUTHOR_ID" +
+            " WHERE c.ITEM_ID IN (:itemIds)) t" +
+            " WHERE t.RN <= :limit" +
+            " ORDER BY t.ITEM_ID, t.ID",
+            nativeQuery = true)
+    List<CommentWithAuthor> findFirstWithAuthorByItemIdIn(@Param("itemIds") Collection<Long> itemIds,
+                                                          @Param("limit") int limit);
 }
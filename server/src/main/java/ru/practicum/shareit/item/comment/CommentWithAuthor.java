@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.comment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция отзыва вместе с именем его автора
+ */
+public interface CommentWithAuthor {
+    Long getId();
+
+    String getText();
+
+    Long getItemId();
+
+    String getAuthorName();
+
+    LocalDateTime getCreated();
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчик SQL-запросов и времени JDBC в рамках текущего HTTP-запроса.
+ * Один экземпляр живет весь HTTP-запрос и хранится в его атрибутах: фильтр QueryStatsFilter привязывает его
+ * к потоку на каждом проходе запроса, включая асинхронный, а QueryStatsAsyncConfig - к потоку асинхронной задачи
+ * (Callable, StreamingResponseBody). Заполняется слушателем сессий Hibernate
+ */
+public class QueryStats {
+    static final String ATTRIBUTE = QueryStats.class.getName();
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    // запросы потока обработки и асинхронной задачи могут учитываться одновременно
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong jdbcNanos = new AtomicLong();
+
+    static void bind(QueryStats stats) {
+        CURRENT.set(stats);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    // Метод для учета выполненного запроса или пакета запросов, вне HTTP-запроса ничего не делает
+    static void record(long elapsedNanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements.incrementAndGet();
+            stats.jdbcNanos.addAndGet(elapsedNanos);
+        }
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos.get();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.metrics;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Конфигурация, передающая QueryStats HTTP-запроса в поток асинхронной задачи Spring MVC.
+ * Так учитываются запросы к базе из Callable и StreamingResponseBody, которые выполняются вне потока Tomcat
+ */
+@Configuration
+public class QueryStatsAsyncConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new QueryStatsCallableInterceptor());
+    }
+
+    private static class QueryStatsCallableInterceptor implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            QueryStats stats = (QueryStats) request.getAttribute(QueryStats.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (stats != null) {
+                QueryStats.bind(stats);
+            }
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            QueryStats.unbind();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр, считающий SQL-запросы и время JDBC каждого HTTP-запроса.
+ * Значения публикуются метриками http.server.requests.sql.statements и http.server.requests.jdbc
+ * с тегами method и uri, а запросы сверх порогов shareit.slow-request.* пишутся в журнал.
+ * Для асинхронного запроса учитываются все его проходы и асинхронная задача, итог записывается при завершении
+ */
+@Slf4j
+@Component
+public class QueryStatsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+    private final int slowStatements;
+    private final long slowMillis;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry,
+                            @Value("${shareit.slow-request.statements:20}") int slowStatements,
+                            @Value("${shareit.slow-request.millis:500}") long slowMillis) {
+        this.meterRegistry = meterRegistry;
+        this.slowStatements = slowStatements;
+        this.slowMillis = slowMillis;
+    }
+
+    // Асинхронный проход того же запроса тоже фильтруется, чтобы запросы к базе при записи результата попали в счетчик
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean asyncDispatch = isAsyncDispatch(request);
+        QueryStats stats = (QueryStats) request.getAttribute(QueryStats.ATTRIBUTE);
+        if (!asyncDispatch || stats == null) {
+            stats = new QueryStats();
+            request.setAttribute(QueryStats.ATTRIBUTE, stats);
+        }
+        long start = System.nanoTime();
+        QueryStats.bind(stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats.unbind();
+            if (request.isAsyncStarted()) {
+                // итог записывается после завершения асинхронной обработки, когда выполнены все ее запросы к базе
+                if (!asyncDispatch) {
+                    request.getAsyncContext().addListener(new RecordingListener(request, response, stats, start));
+                }
+            } else if (!asyncDispatch) {
+                record(request, response, stats, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, QueryStats stats, long elapsedMillis) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("Количество SQL-запросов на один HTTP-запрос")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("http.server.requests.jdbc")
+                .description("Время выполнения SQL-запросов на один HTTP-запрос")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.getStatements() > slowStatements || elapsedMillis > slowMillis) {
+            log.warn("Медленный запрос {} {} (шаблон {}): статус {}, SQL-запросов {}, JDBC {} мс, всего {} мс",
+                    request.getMethod(), request.getRequestURI(), uri, response.getStatus(), stats.getStatements(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getJdbcNanos()), elapsedMillis);
+        }
+    }
+
+    // Слушатель асинхронной обработки запроса, записывающий метрики при ее завершении
+    private class RecordingListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final QueryStats stats;
+        private final long start;
+
+        private RecordingListener(HttpServletRequest request, HttpServletResponse response, QueryStats stats, long start) {
+            this.request = request;
+            this.response = response;
+            this.stats = stats;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response, stats, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        // при повторном запуске асинхронной обработки слушатели снимаются и регистрируются заново
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
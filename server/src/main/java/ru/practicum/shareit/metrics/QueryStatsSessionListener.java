@@ -0,0 +1,32 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Слушатель сессий Hibernate, передающий в QueryStats количество и время выполнения запросов.
+ * Подключается свойством spring.jpa.properties.hibernate.session.events.auto, создается на каждую сессию
+ */
+public class QueryStatsSessionListener extends BaseSessionEventListener {
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryStats.record(System.nanoTime() - executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryStats.record(System.nanoTime() - batchStart);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.state.State;
+
+/**
+ * Аспект, замеряющий время каждого метода сервисов метрикой shareit.service.
+ * Теги: service и method - вызванный метод, state - состояние бронирований, если оно передано,
+ * status - код ответа ResponseEntity или имя исключения
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * ru.practicum.shareit.booking.BookingService.*(..))"
+            + " || execution(public * ru.practicum.shareit.booking.BookingExportService.*(..))"
+            + " || execution(public * ru.practicum.shareit.item.ItemService.*(..))"
+            + " || execution(public * ru.practicum.shareit.item.ItemImportService.*(..))"
+            + " || execution(public * ru.practicum.shareit.request.ItemRequestService.*(..))"
+            + " || execution(public * ru.practicum.shareit.user.UserService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "none";
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof ResponseEntity) {
+                status = String.valueOf(((ResponseEntity<?>) result).getStatusCodeValue());
+            }
+            return result;
+        } catch (Throwable e) {
+            status = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("shareit.service")
+                    .description("Время выполнения методов сервисов")
+                    .tag("service", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("state", getState(joinPoint.getArgs()))
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String getState(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof State) {
+                return ((State) arg).name();
+            }
+        }
+        return "none";
+    }
+}
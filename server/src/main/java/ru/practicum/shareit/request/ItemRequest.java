@@ -18,7 +18,8 @@ import java.util.Objects;
 @Table(name = "item_requests")
 public class ItemRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_request_seq")
+    @SequenceGenerator(name = "item_request_seq", sequenceName = "item_request_seq", allocationSize = 50)
     private Long id;
 
     private String description;
@@ -3,6 +3,7 @@ package ru.practicum.shareit.request;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.HeaderKey;
 
 /**
@@ -34,7 +35,13 @@ public class ItemRequestController {
 
     @GetMapping("/{requestId}")
     public ResponseEntity<Object> findRequestInfoById(@PathVariable("requestId") Long requestId,
-                                                      @RequestHeader(HeaderKey.USER_KEY) Long userId) {
+                                                      @RequestHeader(HeaderKey.USER_KEY) Long userId,
+                                                      WebRequest webRequest) {
+        // Сам запрос не изменяется, поэтому ETag зависит только от созданных под него предметов
+        String eTag = itemRequestService.getRequestETag(userId, requestId);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         return itemRequestService.findRequestById(requestId, userId);
     }
 
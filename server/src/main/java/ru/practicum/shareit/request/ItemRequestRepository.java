@@ -1,11 +1,22 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findAllByRequesterIdOrderByCreatedAsc(Long userId);
 
+    // Метод для постраничного поиска запросов других пользователей
+    List<ItemRequest> findAllByRequesterIdNot(Long userId, Pageable pageable);
+
+    // Метод для поиска существующих id запросов без загрузки самих запросов в контекст
+    @Query("select r.id from ItemRequest as r where r.id in :requestIds")
+    List<Long> findIdsByIdIn(@Param("requestIds") Collection<Long> requestIds);
+
 }
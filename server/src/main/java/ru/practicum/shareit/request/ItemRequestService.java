@@ -12,6 +12,9 @@ public interface ItemRequestService {
     // Метод для вывода полного списка запросов с пагинацией
     ResponseEntity<Object> getAllRequests(Long userId, Integer from, Integer size);
 
+    // Метод для вычисления ETag запроса по предметам, созданным под него, null если пользователь или запрос не найдены
+    String getRequestETag(Long userId, Long requestId);
+
     // Метод для вывода запроса по его id
     ResponseEntity<Object> findRequestById(Long requestId, Long userId);
 }
@@ -13,10 +13,11 @@ import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemDto;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
-import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,7 +26,7 @@ import java.util.Map;
 @Slf4j
 public class ItemRequestServiceImpl implements ItemRequestService {
     private ItemRequestRepository itemRequestRepository;
-    private UserRepository userRepository;
+    private UserCache userCache;
     private ItemRepository itemRepository;
 
 
@@ -49,7 +50,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
             return new ResponseEntity<>(getMapBody("Пользователь с id = " + userId + " не найден"), HttpStatus.NOT_FOUND);
         }
         log.info("Успешный вывод списка запросов по id = {} владельца", userId);
-        return ResponseEntity.ok(getItemRequestsDtoWhenFindAllRequestsByOwnerId(userId));
+        return ResponseEntity.ok(getItemRequestsDto(itemRequestRepository.findAllByRequesterIdOrderByCreatedAsc(userId)));
     }
 
     @Transactional(readOnly = true)
@@ -58,16 +59,21 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         if (checkUserById(userId)) {
             return new ResponseEntity<>(getMapBody("Пользователь с id = " + userId + " не найден"), HttpStatus.NOT_FOUND);
         }
-        //если пагинация выходит за список, то изменим ее размер
-        int sizeItemRequests = itemRequestRepository.findAll().size();
-        if (sizeItemRequests < from + size && sizeItemRequests > 0) {
-            size = sizeItemRequests - from;
-        }
         List<ItemRequest> itemRequests = itemRequestRepository
-                .findAll(PageRequest.of(from, size, Sort.by(Sort.Order.asc("created"))))
-                .getContent();
+                .findAllByRequesterIdNot(userId, PageRequest.of(from, size, Sort.by(Sort.Order.asc("created"))));
         log.info("Успешный вывод всех запросов с учетом пагинации");
-        return ResponseEntity.ok(getItemRequestDtoWhenGetAllRequests(userId, itemRequests));
+        return ResponseEntity.ok(getItemRequestsDto(itemRequests));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public String getRequestETag(Long userId, Long requestId) {
+        if (userCache.findById(userId).isEmpty()) {
+            return null;
+        }
+        return itemRepository.findRequestItemsStamp(requestId)
+                .map(stamp -> requestId + "-" + stamp)
+                .orElse(null);
     }
 
     @Transactional(readOnly = true)
@@ -98,7 +104,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     // Метод для проверки существования пользователя
     private Boolean checkUserById(Long userId) {
-        if (userRepository.findById(userId).isEmpty()) {
+        if (userCache.findById(userId).isEmpty()) {
             log.warn("Пользователь с id = {} не найден", userId);
             return true;
         }
@@ -114,34 +120,19 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return false;
     }
 
-    // Метод для возврата списка запросов для пользователя
-    private List<ItemRequestDto> getItemRequestDtoWhenGetAllRequests(Long userId, List<ItemRequest> itemRequests) {
-        List<ItemRequestDto> itemRequestsDto = new ArrayList<>();
-        itemRequests.forEach(itemRequest -> {
-            if (!itemRequest.getRequesterId().equals(userId)) {
-                List<Item> items = itemRepository.findAllByRequestId(itemRequest.getId());
-                List<ItemDto> itemsDto = new ArrayList<>();
-                items.forEach(item -> itemsDto.add(ItemMapper.toItemDto(item)));
-                itemRequestsDto.add(ItemRequestMapper.toItemRequestDto(itemRequest, itemsDto));
-            }
-        });
-        return itemRequestsDto;
-    }
-
-    // Метод для возврата списка запросов для его владельца
-    private List<ItemRequestDto> getItemRequestsDtoWhenFindAllRequestsByOwnerId(Long userId) {
+    // Метод для возврата списка запросов вместе с предметами, загруженными одним запросом
+    private List<ItemRequestDto> getItemRequestsDto(List<ItemRequest> itemRequests) {
+        List<Long> requestIds = new ArrayList<>();
+        itemRequests.forEach(itemRequest -> requestIds.add(itemRequest.getId()));
+        Map<Long, List<ItemDto>> itemsByRequest = new HashMap<>();
+        if (!requestIds.isEmpty()) {
+            itemRepository.findAllByRequestIdIn(requestIds).forEach(item ->
+                    itemsByRequest.computeIfAbsent(item.getRequestId(), id -> new ArrayList<>())
+                            .add(ItemMapper.toItemDto(item)));
+        }
         List<ItemRequestDto> itemRequestsDto = new ArrayList<>();
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequesterIdOrderByCreatedAsc(userId);
-        itemRequests.forEach(itemRequest -> {
-            List<Item> items = itemRepository.findAllByRequestId(itemRequest.getId());
-            if (items.size() == 0 || !itemRequest.getRequesterId().equals(userId)) {
-                itemRequestsDto.add(ItemRequestMapper.toItemRequestDto(itemRequest));
-            } else {
-                List<ItemDto> itemsDto = new ArrayList<>();
-                items.forEach(item -> itemsDto.add(ItemMapper.toItemDto(item)));
-                itemRequestsDto.add(ItemRequestMapper.toItemRequestDto(itemRequest, itemsDto));
-            }
-        });
+        itemRequests.forEach(itemRequest -> itemRequestsDto.add(ItemRequestMapper.toItemRequestDto(itemRequest,
+                itemsByRequest.getOrDefault(itemRequest.getId(), new ArrayList<>()))));
         return itemRequestsDto;
     }
 
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.user;
+
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс-компонент для поиска пользователей по id с кэшированием результата.
+ * Размер кэша и время жизни записей задаются в spring.cache.caffeine.spec
+ */
+@Component
+@Setter(onMethod_ = @Autowired)
+public class UserCache {
+    public static final String CACHE_NAME = "users";
+
+    // счетчик сбросов кэша: по нему загрузка узнает, что пользователя изменили, пока она читала строку из базы
+    private final AtomicLong evictions = new AtomicLong();
+
+    private UserRepository userRepository;
+    private CacheManager cacheManager;
+
+    // Метод для поиска пользователя, отсутствующие пользователи не кэшируются.
+    // В кэш попадает копия: сущность из контекста постоянства может быть изменена до фиксации транзакции
+    public Optional<User> findById(Long userId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return userRepository.findById(userId).map(this::copy);
+        }
+        User cached = cache.get(userId, User.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long evictionsBeforeLoad = evictions.get();
+        Optional<User> user = userRepository.findById(userId).map(this::copy);
+        if (user.isPresent()) {
+            cache.put(userId, user.get());
+            // строка могла быть прочитана до фиксации изменения, а сброс прошел до записи в кэш:
+            // такая копия удаляется, иначе устаревший пользователь отдавался бы до истечения времени жизни записи
+            if (evictions.get() != evictionsBeforeLoad) {
+                cache.evict(userId);
+            }
+        }
+        return user;
+    }
+
+    // Метод для удаления пользователя из кэша после завершения текущей транзакции, как фиксации, так и отката
+    public void evict(Long userId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(cache, userId);
+                }
+            });
+        } else {
+            evictNow(cache, userId);
+        }
+    }
+
+    // счетчик увеличивается до удаления записи, чтобы параллельная загрузка увидела сброс
+    // либо до своей проверки, либо ее запись была удалена этим вызовом
+    private void evictNow(Cache cache, Long userId) {
+        evictions.incrementAndGet();
+        cache.evict(userId);
+    }
+
+    private User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+}
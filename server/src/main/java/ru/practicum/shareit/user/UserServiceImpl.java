@@ -7,6 +7,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
 
 import java.util.List;
 
@@ -18,6 +19,8 @@ import java.util.List;
 @Slf4j
 public class UserServiceImpl implements UserService {
     private UserRepository userRepository;
+    private UserCache userCache;
+    private ItemBookingStatsRepository itemBookingStatsRepository;
 
     @Transactional
     @Override
@@ -34,12 +37,18 @@ public class UserServiceImpl implements UserService {
             return resultValidation;
         }
         User user = userRepository.findById(userId).get();
+        if (updatedUser.getName() != null && !updatedUser.getName().equals(user.getName())) {
+            // имя автора показывается в отзывах, поэтому меняется ETag карточек вещей с его отзывами
+            itemBookingStatsRepository.incrementCommentsVersionByAuthorId(userId);
+        }
         if (updatedUser.getName() != null)
             user.setName(updatedUser.getName());
         if (updatedUser.getEmail() != null)
             user.setEmail(updatedUser.getEmail());
+        User answerUser = userRepository.save(user);
+        userCache.evict(userId);
         log.debug("Пользователь под id = {} успешно обновлен.", userId);
-        return ResponseEntity.ok(userRepository.save(user));
+        return ResponseEntity.ok(answerUser);
     }
 
     @Transactional(readOnly = true)
@@ -49,7 +58,10 @@ public class UserServiceImpl implements UserService {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         log.debug("Пользователь под id = {} успешно найден.", userId);
-        return ResponseEntity.ok(userRepository.findById(userId).get());
+        User user = userCache.findById(userId).get();
+        return ResponseEntity.ok()
+                .eTag(userId + "-" + user.getVersion())
+                .body(user);
     }
 
     @Transactional
@@ -58,6 +70,7 @@ public class UserServiceImpl implements UserService {
         if (!checkUserId(userId)) {
             log.debug("Пользователь под id = {} успешно удален.", userId);
             userRepository.deleteById(userId);
+            userCache.evict(userId);
             return new ResponseEntity<>(HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -96,7 +109,7 @@ public class UserServiceImpl implements UserService {
 
     // Метод проверка существования пользователя
     private Boolean checkUserId(Long userId) {
-        if (userRepository.findById(userId).isEmpty()) {
+        if (userCache.findById(userId).isEmpty()) {
             log.warn("Пользователь с id = {} не найден", userId);
             return true;
         }
@@ -0,0 +1,10 @@
+ALTER TABLE item_booking_stats ADD COLUMN phase_future BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE item_booking_stats ADD COLUMN phase_current BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE item_booking_stats ADD COLUMN phase_past BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE item_booking_stats s
+SET phase_future  = (SELECT COUNT(*) FROM bookings b WHERE b.item_id = s.item_id AND b.phase = 'FUTURE'),
+    phase_current = (SELECT COUNT(*) FROM bookings b WHERE b.item_id = s.item_id AND b.phase = 'CURRENT'),
+    phase_past    = (SELECT COUNT(*) FROM bookings b WHERE b.item_id = s.item_id AND b.phase = 'PAST');
@@ -0,0 +1,10 @@
+ALTER TABLE item_booking_stats ADD COLUMN bookings_version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE item_booking_stats ADD COLUMN comments_version BIGINT DEFAULT 0 NOT NULL;
+
+INSERT INTO item_booking_stats (item_id)
+SELECT i.id
+FROM items i
+WHERE NOT EXISTS (SELECT 1 FROM item_booking_stats s WHERE s.item_id = i.id);
+
+CREATE INDEX IF NOT EXISTS IDX_COMMENT_AUTHOR ON comments (author_id);
@@ -0,0 +1,11 @@
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_BOOKER_END ON bookings (booker_id, end_date_time, id);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_ITEM_STATUS_START ON bookings (item_id, status, start_date_time);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEM_OWNER ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEM_REQUEST ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS IDX_COMMENT_ITEM ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS IDX_ITEM_REQUEST_REQUESTER_CREATED ON item_requests (requester_id, created);
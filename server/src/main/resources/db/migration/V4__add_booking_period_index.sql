@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_ITEM_PERIOD ON bookings (item_id, start_date_time, end_date_time);
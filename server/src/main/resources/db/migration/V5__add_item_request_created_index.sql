@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS IDX_ITEM_REQUEST_CREATED ON item_requests (created);
@@ -0,0 +1,3 @@
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE items ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS item_booking_stats
+(
+    item_id              BIGINT                      NOT NULL,
+    waiting              BIGINT DEFAULT 0            NOT NULL,
+    approved             BIGINT DEFAULT 0            NOT NULL,
+    rejected             BIGINT DEFAULT 0            NOT NULL,
+    approved_seconds     BIGINT DEFAULT 0            NOT NULL,
+    first_approved_start TIMESTAMP WITHOUT TIME ZONE,
+    last_approved_end    TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_item_booking_stats PRIMARY KEY (item_id),
+    CONSTRAINT FK_ITEM_BOOKING_STATS_ON_ITEM FOREIGN KEY (item_id) REFERENCES items (id)
+);
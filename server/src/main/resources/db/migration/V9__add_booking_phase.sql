@@ -0,0 +1,16 @@
+ALTER TABLE bookings ADD COLUMN phase VARCHAR(16) DEFAULT 'FUTURE' NOT NULL;
+
+UPDATE bookings
+SET phase = CASE
+                WHEN end_date_time < LOCALTIMESTAMP THEN 'PAST'
+                WHEN start_date_time < LOCALTIMESTAMP THEN 'CURRENT'
+                ELSE 'FUTURE'
+    END;
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_BOOKER_PHASE_END ON bookings (booker_id, phase, end_date_time, id);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_ITEM_PHASE_END ON bookings (item_id, phase, end_date_time, id);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_PHASE_START ON bookings (phase, start_date_time);
+
+CREATE INDEX IF NOT EXISTS IDX_BOOKING_PHASE_END ON bookings (phase, end_date_time);
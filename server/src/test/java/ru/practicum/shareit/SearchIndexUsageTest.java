@@ -0,0 +1,157 @@
+package ru.practicum.shareit;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.phase.Phase;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+import ru.practicum.shareit.status.Status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверка по EXPLAIN, что запросы основных методов поиска читают таблицы по индексам из миграций.
+ * SQL берется тот, что Hibernate сформировал при вызове метода репозитория, параметры в плане остаются как ?N.
+ * H2 создает собственный индекс для каждого внешнего ключа и предпочитает его составным, а в PostgreSQL таких индексов нет.
+ * Поэтому план строится в отдельной базе из тех же миграций без внешних ключей и проверяется имя индекса
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.SearchIndexUsageTest$SqlCapture")
+@ActiveProfiles("test")
+class SearchIndexUsageTest {
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+    private static final List<Long> IDS = List.of(1L, 2L);
+
+    private static JdbcTemplate explainJdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @BeforeAll
+    static void createExplainDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:explain;DB_CLOSE_DELAY=-1",
+                "test", "test");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        explainJdbcTemplate = new JdbcTemplate(dataSource);
+        explainJdbcTemplate.queryForList("SELECT TABLE_NAME, CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS"
+                        + " WHERE CONSTRAINT_TYPE = 'FOREIGN KEY'")
+                .forEach(constraint -> explainJdbcTemplate.execute("ALTER TABLE " + constraint.get("TABLE_NAME")
+                        + " DROP CONSTRAINT " + constraint.get("CONSTRAINT_NAME")));
+    }
+
+    @Test
+    void bookingsOfBookerUseBookerEndIndex() {
+        String plan = explain(() -> bookingRepository.findAllByBookerId(1L, LocalDateTime.now(), Long.MAX_VALUE, PAGE));
+        assertIndexLookup(plan, "IDX_BOOKING_BOOKER_END", "BOOKER_ID =");
+    }
+
+    @Test
+    void bookingsOfBookerInPhasesUseBookerPhaseIndex() {
+        String plan = explain(() -> bookingRepository.findAllByBookerIdAndPhaseIn(1L, List.of(Phase.FUTURE),
+                LocalDateTime.now(), Long.MAX_VALUE, PAGE));
+        assertIndexLookup(plan, "IDX_BOOKING_BOOKER_PHASE_END", "BOOKER_ID =");
+    }
+
+    @Test
+    void bookingsOfOwnerUseOwnerAndItemIndexes() {
+        String plan = explain(() -> bookingRepository.findAllByOwnerId(1L, LocalDateTime.now(), Long.MAX_VALUE, PAGE));
+        assertIndexLookup(plan, "IDX_ITEM_OWNER", "OWNER_ID =");
+        assertIndexLookup(plan, "IDX_BOOKING_ITEM_\\w+", "ITEM_ID =");
+    }
+
+    @Test
+    void lastApprovedBookingsUseItemStatusStartIndex() {
+        // по одному поиску в индексе на каждую вещь страницы
+        String plan = explain(() -> bookingRepository.findLastApprovedByItemIds(IDS, LocalDateTime.now()));
+        assertIndexLookup(plan, "PRIMARY_KEY_\\w+", "ID IN(");
+        assertIndexLookup(plan, "IDX_BOOKING_ITEM_STATUS_START", "ITEM_ID = I.ID");
+    }
+
+    @Test
+    void nextApprovedBookingsUseItemStatusStartIndex() {
+        // по одному поиску в индексе на каждую вещь страницы
+        String plan = explain(() -> bookingRepository.findNextApprovedByItemIds(IDS, LocalDateTime.now()));
+        assertIndexLookup(plan, "PRIMARY_KEY_\\w+", "ID IN(");
+        assertIndexLookup(plan, "IDX_BOOKING_ITEM_STATUS_START", "ITEM_ID = I.ID");
+    }
+
+    @Test
+    void overlappingBookingsUseItemIndex() {
+        String plan = explain(() -> bookingRepository.existsOverlapping(1L, LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), List.of(Status.WAITING, Status.APPROVED)));
+        assertIndexLookup(plan, "IDX_BOOKING_ITEM_\\w+", "ITEM_ID =");
+    }
+
+    @Test
+    void itemsOfOwnerUseOwnerIndex() {
+        assertIndexLookup(explain(() -> itemRepository.findAllByOwnerId(1L, PAGE)), "IDX_ITEM_OWNER", "OWNER_ID =");
+    }
+
+    @Test
+    void itemsOfRequestsUseRequestIndex() {
+        assertIndexLookup(explain(() -> itemRepository.findAllByRequestIdIn(IDS)), "IDX_ITEM_REQUEST", "REQUEST_ID IN(");
+    }
+
+    @Test
+    void commentsOfItemsUseItemIndex() {
+        String plan = explain(() -> commentRepository.findFirstWithAuthorByItemIdIn(IDS, 10));
+        assertIndexLookup(plan, "IDX_COMMENT_ITEM", "ITEM_ID IN(");
+    }
+
+    @Test
+    void requestsOfRequesterUseRequesterCreatedIndex() {
+        String plan = explain(() -> itemRequestRepository.findAllByRequesterIdOrderByCreatedAsc(1L));
+        assertIndexLookup(plan, "IDX_ITEM_REQUEST_REQUESTER_CREATED", "REQUESTER_ID =");
+    }
+
+    // единственный запрос метода репозитория разбирается через EXPLAIN в базе без внешних ключей
+    private String explain(Runnable finder) {
+        SqlCapture.STATEMENTS.clear();
+        finder.run();
+        List<String> statements = new ArrayList<>(SqlCapture.STATEMENTS);
+        assertThat(statements).hasSize(1);
+        return explainJdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + statements.get(0)),
+                resultSet -> {
+                    resultSet.next();
+                    return resultSet.getString(1).replaceAll("\\s+", " ");
+                });
+    }
+
+    // в плане H2 поиск по индексу выглядит как /* PUBLIC.ИНДЕКС: УСЛОВИЕ */, полный просмотр как /* PUBLIC.ТАБЛИЦА.tableScan */
+    private void assertIndexLookup(String plan, String index, String condition) {
+        assertThat(plan).doesNotContain("tableScan");
+        assertThat(plan).containsPattern("/\\* PUBLIC\\." + index + ": [^*]*" + condition.replace("(", "\\("));
+    }
+
+    // Запоминает SQL, отправленный Hibernate в базу
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
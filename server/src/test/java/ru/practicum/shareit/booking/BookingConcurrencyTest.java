@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.status.Status;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельное бронирование одной вещи из многих потоков: блокировка строки вещи и проверка пересечений
+ * не должны пропускать двойные бронирования
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int SLOTS = 100; // слоты по часу, бронирование занимает от одного до трех слотов
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Long itemId;
+    private List<Long> bookerIds;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        Long ownerId = createUser().getId();
+        ItemDto itemDto = ItemDto.builder().name("Дрель").description("Аккумуляторная дрель").available(true).build();
+        itemId = ((ItemDto) itemService.create(itemDto, ownerId).getBody()).getId();
+        bookerIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookerIds.add(createUser().getId());
+        }
+        base = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    void onlyOneOfOverlappingBookingsIsCreated() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        runConcurrently(thread -> {
+            // периоды сдвинуты на минуты, поэтому все пересекаются, но не совпадают
+            int status = create(bookerIds.get(thread), base.plusMinutes(thread), base.plusHours(2).plusMinutes(thread));
+            if (status == 200) {
+                created.incrementAndGet();
+            } else {
+                assertThat(status).isEqualTo(409);
+            }
+        });
+
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(getActiveBookings()).hasSize(1);
+    }
+
+    @Test
+    void randomBookingsNeverOverlap() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                LocalDateTime start = base.plusHours(random.nextInt(SLOTS));
+                int status = create(bookerIds.get(thread), start, start.plusHours(1 + random.nextInt(3)));
+                if (status == 200) {
+                    created.incrementAndGet();
+                } else {
+                    assertThat(status).isEqualTo(409);
+                    conflicts.incrementAndGet();
+                }
+            }
+        });
+
+        List<Booking> bookings = getActiveBookings();
+        assertThat(bookings).hasSize(created.get());
+        assertThat(created.get() + conflicts.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD);
+        assertThat(conflicts.get()).isPositive();
+        bookings.sort(Comparator.comparing(Booking::getStart));
+        for (int i = 1; i < bookings.size(); i++) {
+            assertThat(bookings.get(i).getStart()).isAfterOrEqualTo(bookings.get(i - 1).getEnd());
+        }
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                Callable<Void> callable = () -> {
+                    startSignal.await();
+                    task.run(thread);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+            startSignal.countDown();
+            for (Future<Void> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int create(Long bookerId, LocalDateTime start, LocalDateTime end) {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(itemId);
+        bookingCreateDto.setStart(start);
+        bookingCreateDto.setEnd(end);
+        return bookingService.create(bookingCreateDto, bookerId).getStatusCodeValue();
+    }
+
+    private List<Booking> getActiveBookings() {
+        return new ArrayList<>(bookingRepository.findOverlapping(List.of(itemId), base.minusDays(1),
+                base.plusDays(30), List.of(Status.WAITING, Status.APPROVED)));
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
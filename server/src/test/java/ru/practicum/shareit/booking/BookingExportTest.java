@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выгрузка истории бронирований в CSV: экранирование названий вещей и пустое поле без названия
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingExportTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingExportService bookingExportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long ownerId;
+    private Long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser().getId();
+        bookerId = createUser().getId();
+    }
+
+    @Test
+    void csvEscapesItemName() throws Exception {
+        Long itemId = createItem("Дрель, \"ударная\"");
+        Long bookingId = createBooking(itemId);
+
+        String[] lines = exportCsv();
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith(bookingId + ",")
+                .endsWith("," + itemId + ",\"Дрель, \"\"ударная\"\"\"," + bookerId);
+    }
+
+    @Test
+    void csvWritesEmptyFieldForMissingItemName() throws Exception {
+        Long itemId = createItem("Дрель");
+        Long bookingId = createBooking(itemId);
+        jdbcTemplate.update("UPDATE items SET name = NULL WHERE id = ?", itemId);
+
+        String[] lines = exportCsv();
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith(bookingId + ",").endsWith("," + itemId + ",," + bookerId);
+    }
+
+    private String[] exportCsv() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        bookingExportService.exportForUser(bookerId, State.ALL, "csv", response);
+        return response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+    }
+
+    private Long createItem(String name) {
+        ItemDto itemDto = ItemDto.builder().name(name).description("Описание").available(true).build();
+        return ((ItemDto) itemService.create(itemDto, ownerId).getBody()).getId();
+    }
+
+    private Long createBooking(Long itemId) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(itemId);
+        bookingCreateDto.setStart(start);
+        bookingCreateDto.setEnd(start.plusHours(1));
+        return bookingService.create(bookingCreateDto, bookerId).getBody().getId();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+}
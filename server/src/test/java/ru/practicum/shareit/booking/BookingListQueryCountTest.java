@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Страница бронирований собирается фиксированным числом запросов независимо от количества вещей на ней:
+ * один запрос бронирований и один запрос названий вещей
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class BookingListQueryCountTest {
+    private static final int ITEMS = 20;
+    private static final long STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long ownerId;
+    private Long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser().getId();
+        bookerId = createUser().getId();
+        // у каждого бронирования своя вещь, чтобы поиск названий по одной вещи был заметен
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < ITEMS; i++) {
+            ItemDto itemDto = ItemDto.builder().name("Вещь " + i).description("Описание " + i).available(true).build();
+            ItemDto item = (ItemDto) itemService.create(itemDto, ownerId).getBody();
+
+            BookingCreateDto bookingCreateDto = new BookingCreateDto();
+            bookingCreateDto.setItemId(item.getId());
+            bookingCreateDto.setStart(start.plusHours(i));
+            bookingCreateDto.setEnd(start.plusHours(i + 1));
+            assertThat(bookingService.create(bookingCreateDto, bookerId).getStatusCodeValue()).isEqualTo(200);
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findAllForUserUsesFixedNumberOfStatements() {
+        assertPage(5, () -> bookingService.findAllForUser(bookerId, State.ALL, 0, 5, null, null));
+        assertPage(ITEMS, () -> bookingService.findAllForUser(bookerId, State.ALL, 0, ITEMS, null, null));
+        assertPage(ITEMS, () -> bookingService.findAllForUser(bookerId, State.FUTURE, 0, ITEMS, null, null));
+    }
+
+    @Test
+    void findAllForOwnerUsesFixedNumberOfStatements() {
+        assertPage(5, () -> bookingService.findAllForOwner(ownerId, State.ALL, 0, 5, null, null));
+        assertPage(ITEMS, () -> bookingService.findAllForOwner(ownerId, State.WAITING, 0, ITEMS, null, null));
+    }
+
+    @Test
+    void everyCursorPageUsesFixedNumberOfStatements() {
+        List<BookingDto> page = assertPage(8, () -> bookingService.findAllForUser(bookerId, State.ALL, 0, 8, null, null));
+        BookingDto last = page.get(page.size() - 1);
+        page = assertPage(8, () -> bookingService
+                .findAllForUser(bookerId, State.ALL, 0, 8, last.getEnd(), last.getId()));
+        BookingDto secondLast = page.get(page.size() - 1);
+        assertPage(ITEMS - 16, () -> bookingService
+                .findAllForUser(bookerId, State.ALL, 0, 8, secondLast.getEnd(), secondLast.getId()));
+    }
+
+    // пользователь уже в кэше после подготовки данных, поэтому считаются только запросы страницы
+    private List<BookingDto> assertPage(int expectedSize, Supplier<ResponseEntity<List<BookingDto>>> call) {
+        statistics.clear();
+        List<BookingDto> page = call.get().getBody();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_PAGE);
+        assertThat(page).hasSize(expectedSize);
+        assertThat(page).allSatisfy(booking -> assertThat(booking.getItem().name).startsWith("Вещь "));
+        return page;
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        ResponseEntity<User> response = userService.save(user);
+        return response.getBody();
+    }
+}
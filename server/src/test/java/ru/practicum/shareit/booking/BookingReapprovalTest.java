@@ -0,0 +1,172 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.status.Status;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Подтверждение отклоненного бронирования: пока оно не занимало период, вещь могли забронировать на то же время,
+ * и повторное подтверждение не должно давать двух активных бронирований на один период
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingReapprovalTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Long ownerId;
+    private Long itemId;
+    private Long bookerId;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser().getId();
+        ItemDto itemDto = ItemDto.builder().name("Дрель").description("Аккумуляторная дрель").available(true).build();
+        itemId = ((ItemDto) itemService.create(itemDto, ownerId).getBody()).getId();
+        bookerId = createUser().getId();
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    void reapprovalOfTakenPeriodIsConflict() {
+        Long rejectedId = createBooking();
+        assertThat(bookingService.setStatus(ownerId, rejectedId, false).getStatusCodeValue()).isEqualTo(200);
+        Long takenId = createBooking();
+
+        assertThat(bookingService.setStatus(ownerId, rejectedId, true).getStatusCodeValue()).isEqualTo(409);
+
+        assertThat(bookingRepository.findById(rejectedId).get().getStatus()).isEqualTo(Status.REJECTED);
+        assertThat(activeBookings()).containsExactly(takenId);
+    }
+
+    @Test
+    void reapprovalOfFreePeriodIsAllowed() {
+        Long bookingId = createBooking();
+        assertThat(bookingService.setStatus(ownerId, bookingId, false).getStatusCodeValue()).isEqualTo(200);
+
+        assertThat(bookingService.setStatus(ownerId, bookingId, true).getStatusCodeValue()).isEqualTo(200);
+
+        assertThat(bookingRepository.findById(bookingId).get().getStatus()).isEqualTo(Status.APPROVED);
+    }
+
+    @Test
+    void batchReapprovalOfOverlappingBookingsApprovesOne() {
+        Long firstId = createBooking();
+        assertThat(bookingService.setStatus(ownerId, firstId, false).getStatusCodeValue()).isEqualTo(200);
+        Long secondId = createBooking();
+        assertThat(bookingService.setStatus(ownerId, secondId, false).getStatusCodeValue()).isEqualTo(200);
+
+        BookingStatusBatchDto batchDto = new BookingStatusBatchDto();
+        batchDto.setBookingIds(List.of(firstId, secondId));
+        List<BookingStatusResultDto> results = bookingService.setStatusBatch(ownerId, batchDto, true).getBody();
+
+        // оба бронирования в базе отклонены, пересечение находится только среди подтвержденных в пакете
+        assertThat(results).extracting(BookingStatusResultDto::getStatus).containsExactly(200, 409);
+        assertThat(activeBookings()).containsExactly(firstId);
+    }
+
+    @Test
+    void concurrentReapprovalsAndCreatesKeepOneActiveBooking() throws Exception {
+        List<Long> rejectedIds = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            Long bookingId = createBooking();
+            assertThat(bookingService.setStatus(ownerId, bookingId, false).getStatusCodeValue()).isEqualTo(200);
+            rejectedIds.add(bookingId);
+        }
+
+        runConcurrently(thread -> {
+            int status;
+            if (thread % 2 == 0) {
+                status = bookingService.setStatus(ownerId, rejectedIds.get(thread / 2), true).getStatusCodeValue();
+            } else {
+                BookingCreateDto bookingCreateDto = new BookingCreateDto();
+                bookingCreateDto.setItemId(itemId);
+                bookingCreateDto.setStart(start);
+                bookingCreateDto.setEnd(start.plusHours(1));
+                status = bookingService.create(bookingCreateDto, bookerId).getStatusCodeValue();
+            }
+            assertThat(status).isIn(200, 201, 409);
+        });
+
+        assertThat(activeBookings()).hasSize(1);
+    }
+
+    private List<Long> activeBookings() {
+        List<Long> ids = new ArrayList<>();
+        bookingRepository.findOverlapping(List.of(itemId), start, start.plusHours(1),
+                        List.of(Status.WAITING, Status.APPROVED))
+                .forEach(booking -> ids.add(booking.getId()));
+        return ids;
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                Callable<Void> callable = () -> {
+                    startSignal.await();
+                    task.run(thread);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+            startSignal.countDown();
+            for (Future<Void> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long createBooking() {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(itemId);
+        bookingCreateDto.setStart(start);
+        bookingCreateDto.setEnd(start.plusHours(1));
+        return bookingService.create(bookingCreateDto, bookerId).getBody().getId();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
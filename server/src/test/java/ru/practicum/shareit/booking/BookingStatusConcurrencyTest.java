@@ -0,0 +1,164 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.stats.ItemBookingStats;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.status.Status;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельная смена статуса одних и тех же бронирований: статистика вещи должна учитывать
+ * каждое бронирование ровно один раз в его итоговом статусе
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingStatusConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int BOOKINGS = 10;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemBookingStatsRepository itemBookingStatsRepository;
+
+    private Long ownerId;
+    private Long itemId;
+    private Long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser().getId();
+        ItemDto itemDto = ItemDto.builder().name("Дрель").description("Аккумуляторная дрель").available(true).build();
+        itemId = ((ItemDto) itemService.create(itemDto, ownerId).getBody()).getId();
+        bookerId = createUser().getId();
+    }
+
+    @Test
+    void concurrentSingleStatusChangesAreCountedOnce() throws Exception {
+        Long bookingId = createBooking(LocalDateTime.now().plusDays(1).withNano(0));
+
+        runConcurrently(thread -> {
+            int status = bookingService.setStatus(ownerId, bookingId, thread % 2 == 0).getStatusCodeValue();
+            // повторное подтверждение уже подтвержденного бронирования отклоняется
+            assertThat(status).isIn(200, 400);
+        });
+
+        Status status = bookingRepository.findById(bookingId).get().getStatus();
+        assertStats(status == Status.APPROVED ? 1 : 0, status == Status.REJECTED ? 1 : 0);
+    }
+
+    @Test
+    void concurrentBatchAndSingleStatusChangesAreCountedOnce() throws Exception {
+        List<Long> bookingIds = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookingIds.add(createBooking(start.plusDays(i)));
+        }
+
+        runConcurrently(thread -> {
+            boolean approved = thread % 4 < 2;
+            if (thread % 2 == 0) {
+                // пакетная смена статуса то по списку id, то по всем ожидающим бронированиям вещи
+                BookingStatusBatchDto batchDto = new BookingStatusBatchDto();
+                if (thread % 3 == 0) {
+                    batchDto.setItemId(itemId);
+                } else {
+                    batchDto.setBookingIds(bookingIds);
+                }
+                assertThat(bookingService.setStatusBatch(ownerId, batchDto, approved).getStatusCodeValue())
+                        .isEqualTo(200);
+            } else {
+                int status = bookingService.setStatus(ownerId, bookingIds.get(thread % BOOKINGS), approved)
+                        .getStatusCodeValue();
+                assertThat(status).isIn(200, 400);
+            }
+        });
+
+        long approved = 0;
+        long rejected = 0;
+        for (Booking booking : bookingRepository.findAllById(bookingIds)) {
+            if (booking.getStatus() == Status.APPROVED) {
+                approved++;
+            } else if (booking.getStatus() == Status.REJECTED) {
+                rejected++;
+            }
+        }
+        assertThat(approved + rejected).isEqualTo(BOOKINGS);
+        assertStats(approved, rejected);
+    }
+
+    private void assertStats(long approved, long rejected) {
+        ItemBookingStats stats = itemBookingStatsRepository.findById(itemId).get();
+        assertThat(stats.getWaiting()).isZero();
+        assertThat(stats.getApproved()).isEqualTo(approved);
+        assertThat(stats.getRejected()).isEqualTo(rejected);
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                Callable<Void> callable = () -> {
+                    startSignal.await();
+                    task.run(thread);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+            startSignal.countDown();
+            for (Future<Void> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long createBooking(LocalDateTime start) {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(itemId);
+        bookingCreateDto.setStart(start);
+        bookingCreateDto.setEnd(start.plusHours(1));
+        return bookingService.create(bookingCreateDto, bookerId).getBody().getId();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,169 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.phase.BookingPhaseUpdater;
+import ru.practicum.shareit.booking.phase.Phase;
+import ru.practicum.shareit.booking.stats.ItemBookingStats;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsDto;
+import ru.practicum.shareit.booking.stats.ItemBookingStatsRepository;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сводка владельца по статистике вещи: период подтвержденных бронирований после отмены подтверждения
+ * и счетчики фаз, которые ведет перевод бронирований в следующую фазу
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ItemBookingStatsTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingPhaseUpdater bookingPhaseUpdater;
+    @Autowired
+    private ItemBookingStatsRepository itemBookingStatsRepository;
+
+    private Long ownerId;
+    private Long itemId;
+    private Long bookerId;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser().getId();
+        ItemDto itemDto = ItemDto.builder().name("Дрель").description("Аккумуляторная дрель").available(true).build();
+        itemId = ((ItemDto) itemService.create(itemDto, ownerId).getBody()).getId();
+        bookerId = createUser().getId();
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @Test
+    void rejectingApprovedBookingShrinksApprovedPeriod() {
+        Long firstId = createBooking(start);
+        Long lastId = createBooking(start.plusDays(2));
+        bookingService.setStatus(ownerId, firstId, true);
+        bookingService.setStatus(ownerId, lastId, true);
+        assertThat(getStats().getLastApprovedEnd()).isEqualTo(start.plusDays(2).plusHours(1));
+
+        bookingService.setStatus(ownerId, lastId, false);
+
+        ItemBookingStats stats = getStats();
+        assertThat(stats.getFirstApprovedStart()).isEqualTo(start);
+        assertThat(stats.getLastApprovedEnd()).isEqualTo(start.plusHours(1));
+        ItemBookingStatsDto statsDto = getDashboard();
+        assertThat(statsDto.getApproved()).isEqualTo(1);
+        assertThat(statsDto.getUtilization()).isEqualTo(100.0);
+        assertThat(statsDto.getNextBooking().id).isEqualTo(firstId);
+    }
+
+    @Test
+    void batchRejectOfAllApprovedBookingsClearsApprovedPeriod() {
+        Long firstId = createBooking(start);
+        Long lastId = createBooking(start.plusDays(2));
+        BookingStatusBatchDto batchDto = new BookingStatusBatchDto();
+        batchDto.setBookingIds(List.of(firstId, lastId));
+        bookingService.setStatusBatch(ownerId, batchDto, true);
+
+        bookingService.setStatusBatch(ownerId, batchDto, false);
+
+        ItemBookingStats stats = getStats();
+        assertThat(stats.getFirstApprovedStart()).isNull();
+        assertThat(stats.getLastApprovedEnd()).isNull();
+        assertThat(getDashboard().getUtilization()).isZero();
+    }
+
+    @Test
+    void phaseCountersFollowPhaseChanges() throws Exception {
+        Long currentId = createBooking(start);
+        Long pastId = createBooking(start.plusDays(1));
+        createBooking(start.plusDays(2));
+
+        // параллельный и повторный перевод одних и тех же бронирований учитывается один раз
+        runConcurrently(() -> {
+            bookingPhaseUpdater.advance(List.of(currentId, pastId), List.of(Phase.FUTURE), Phase.CURRENT);
+            bookingPhaseUpdater.advance(List.of(pastId), List.of(Phase.FUTURE, Phase.CURRENT), Phase.PAST);
+        });
+
+        ItemBookingStats stats = getStats();
+        assertThat(stats.getPhaseFuture()).isEqualTo(1);
+        assertThat(stats.getPhaseCurrent()).isEqualTo(1);
+        assertThat(stats.getPhasePast()).isEqualTo(1);
+        ItemBookingStatsDto statsDto = getDashboard();
+        assertThat(statsDto.getPast()).isEqualTo(1);
+        assertThat(statsDto.getCurrent()).isEqualTo(1);
+        assertThat(statsDto.getFuture()).isEqualTo(2);
+        assertThat(statsDto.getWaiting()).isEqualTo(3);
+    }
+
+    private ItemBookingStats getStats() {
+        return itemBookingStatsRepository.findById(itemId).get();
+    }
+
+    private ItemBookingStatsDto getDashboard() {
+        List<ItemBookingStatsDto> dashboard = bookingService.findOwnerDashboard(ownerId, 0, 10).getBody();
+        assertThat(dashboard).hasSize(1);
+        return dashboard.get(0);
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Callable<Void> callable = () -> {
+                    startSignal.await();
+                    task.run();
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+            startSignal.countDown();
+            for (Future<Void> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long createBooking(LocalDateTime bookingStart) {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(itemId);
+        bookingCreateDto.setStart(bookingStart);
+        bookingCreateDto.setEnd(bookingStart.plusHours(1));
+        return bookingService.create(bookingCreateDto, bookerId).getBody().getId();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+}
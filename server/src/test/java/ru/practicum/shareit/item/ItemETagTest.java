@@ -0,0 +1,170 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.HeaderKey;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingCreateDto;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.status.Status;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+/**
+ * ETag карточки вещи читается одним запросом по первичным ключам и меняется при изменениях, видимых в карточке;
+ * параллельное изменение той же версии вещи отвечает 409
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemETagTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long ownerId;
+    private Long bookerId;
+    private Long viewerId;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser().getId();
+        bookerId = createUser().getId();
+        viewerId = createUser().getId();
+        ItemDto itemDto = ItemDto.builder().name("Дрель").description("Аккумуляторная дрель").available(true).build();
+        itemId = ((ItemDto) itemService.create(itemDto, ownerId).getBody()).getId();
+    }
+
+    @Test
+    void eTagIsReadWithOneStatement() {
+        itemService.getItemETag(ownerId, itemId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+
+        assertThat(itemService.getItemETag(ownerId, itemId)).isNotNull();
+
+        assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+    }
+
+    @Test
+    void eTagChangesWithCommentsAndTheirAuthors() {
+        Booking booking = new Booking();
+        booking.setItemId(itemId);
+        booking.setBookerId(bookerId);
+        booking.setStart(LocalDateTime.now().minusDays(2));
+        booking.setEnd(LocalDateTime.now().minusDays(1));
+        booking.setStatus(Status.APPROVED);
+        bookingRepository.save(booking);
+        String initial = itemService.getItemETag(viewerId, itemId);
+
+        Comment comment = new Comment();
+        comment.setText("Отличная дрель");
+        assertThat(itemService.addComment(bookerId, itemId, comment).getStatusCodeValue()).isEqualTo(200);
+        String commented = itemService.getItemETag(viewerId, itemId);
+        assertThat(commented).isNotEqualTo(initial);
+
+        User renamed = new User();
+        renamed.setName("Новое имя");
+        userService.update(bookerId, renamed);
+        String afterAuthorRename = itemService.getItemETag(viewerId, itemId);
+        assertThat(afterAuthorRename).isNotEqualTo(commented);
+
+        // изменение пользователя без отзывов карточку не меняет
+        userService.update(viewerId, renamed);
+        assertThat(itemService.getItemETag(viewerId, itemId)).isEqualTo(afterAuthorRename);
+    }
+
+    @Test
+    void bookingApprovalChangesOnlyOwnerETag() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(itemId);
+        bookingCreateDto.setStart(start);
+        bookingCreateDto.setEnd(start.plusHours(1));
+        Long bookingId = bookingService.create(bookingCreateDto, bookerId).getBody().getId();
+        String ownerETag = itemService.getItemETag(ownerId, itemId);
+        String viewerETag = itemService.getItemETag(viewerId, itemId);
+
+        bookingService.setStatus(ownerId, bookingId, true);
+
+        assertThat(itemService.getItemETag(ownerId, itemId)).isNotEqualTo(ownerETag);
+        assertThat(itemService.getItemETag(viewerId, itemId)).isEqualTo(viewerETag);
+    }
+
+    @Test
+    void concurrentUpdateOfSameVersionIsConflict() throws Exception {
+        String eTag = mockMvc.perform(get("/items/{itemId}", itemId).header(HeaderKey.USER_KEY, ownerId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // первая транзакция меняет вещь и держит строку, PATCH читает прежнюю версию и ждет блокировку
+        CompletableFuture<Integer> patchStatus = new CompletableFuture<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Item item = itemRepository.findById(itemId).get();
+            item.setDescription("Изменена первой");
+            itemRepository.saveAndFlush(item);
+            CompletableFuture.runAsync(() -> {
+                try {
+                    patchStatus.complete(mockMvc.perform(patch("/items/{itemId}", itemId)
+                                    .header(HeaderKey.USER_KEY, ownerId)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"name\":\"Изменена второй\"}"))
+                            .andReturn().getResponse().getStatus());
+                } catch (Exception e) {
+                    patchStatus.completeExceptionally(e);
+                }
+            });
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(patchStatus.get(1, TimeUnit.MINUTES)).isEqualTo(409);
+        assertThat(itemRepository.findById(itemId).get().getDescription()).isEqualTo("Изменена первой");
+        assertThat(itemService.getItemETag(ownerId, itemId)).isNotEqualTo(eTag.replace("\"", ""));
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+}
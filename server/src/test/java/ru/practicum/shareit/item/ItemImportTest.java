@@ -0,0 +1,136 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Импорт вещей из NDJSON: ошибки строк, строки статистики для новых вещей
+ * и сообщения о нарушенных ограничениях при параллельном импорте одинаковых названий
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ItemImportTest {
+    private static final int ITEMS = 50;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemImportService itemImportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long ownerId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        ownerId = userService.save(user).getBody().getId();
+    }
+
+    @Test
+    void rowErrorsAreReported() throws Exception {
+        String file = "{\"name\":\"Дрель\",\"description\":\"Дрель\",\"available\":true}\n"
+                + "{\"name\":\"Дрель\",\"description\":\"Вторая дрель\",\"available\":true}\n"
+                + "{\"name\":\"Пила\",\"description\":\"Пила\",\"available\":true,\"requestId\":-1}\n"
+                + "не json\n";
+
+        List<ItemImportEventDto> events = importItems(file);
+
+        // ошибки разбора выводятся сразу, ошибки пачки после ее проверки
+        assertThat(events).extracting(ItemImportEventDto::getError).containsSubsequence(
+                "Строка не является JSON-объектом вещи",
+                "Вещь с названием Дрель уже есть у пользователя",
+                "Запрос с id = -1 не найден");
+        ItemImportEventDto summary = events.get(events.size() - 1);
+        assertThat(summary.getType()).isEqualTo(ItemImportEventDto.SUMMARY);
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(3);
+        assertThat(countItemsWithStats()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentImportReportsDuplicateNames() throws Exception {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < ITEMS; i++) {
+            file.append("{\"name\":\"Вещь ").append(i).append("\",\"description\":\"Описание\",\"available\":true}\n");
+        }
+
+        // оба импорта проходят предварительную проверку названий, конфликт находит только база
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<CompletableFuture<List<ItemImportEventDto>>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        startSignal.await();
+                        return importItems(file.toString());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, executor));
+            }
+            startSignal.countDown();
+
+            long imported = 0;
+            long failed = 0;
+            for (CompletableFuture<List<ItemImportEventDto>> future : futures) {
+                List<ItemImportEventDto> events = future.get(2, TimeUnit.MINUTES);
+                for (ItemImportEventDto event : events) {
+                    if (ItemImportEventDto.ERROR.equals(event.getType())) {
+                        assertThat(event.getError()).matches("Вещь с названием Вещь \\d+ уже есть у пользователя");
+                    }
+                }
+                ItemImportEventDto summary = events.get(events.size() - 1);
+                imported += summary.getImported();
+                failed += summary.getFailed();
+            }
+            assertThat(imported).isEqualTo(ITEMS);
+            assertThat(failed).isEqualTo(ITEMS);
+            assertThat(countItemsWithStats()).isEqualTo(ITEMS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<ItemImportEventDto> importItems(String file) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        itemImportService.importItems(ownerId, new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)),
+                response);
+        List<ItemImportEventDto> events = new ArrayList<>();
+        for (String line : response.getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readValue(line, ItemImportEventDto.class));
+        }
+        return events;
+    }
+
+    private Integer countItemsWithStats() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items i JOIN item_booking_stats s"
+                + " ON s.item_id = i.id WHERE i.owner_id = ?", Integer.class, ownerId);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Учет SQL-запросов HTTP-запроса фильтром QueryStatsFilter: запросы асинхронной задачи StreamingResponseBody
+ * попадают в тот же счетчик, что и запросы обработчика, а итог записывается один раз после завершения ответа
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class QueryStatsFilterTest {
+    private static final String SYNC_URI = "/test/query-stats/sync";
+    private static final String STREAM_URI = "/test/query-stats/stream";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void statementsOfSyncRequestAreCounted() throws Exception {
+        assertThat(restTemplate.getForObject(SYNC_URI, String.class)).isEqualTo("ok");
+
+        DistributionSummary statements = awaitStatements(SYNC_URI);
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void statementsOfStreamingBodyAreCounted() throws Exception {
+        assertThat(restTemplate.getForObject(STREAM_URI, String.class)).isEqualTo("ok");
+
+        // один запрос в обработчике и три при записи тела в потоке асинхронной задачи
+        DistributionSummary statements = awaitStatements(STREAM_URI);
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(4);
+    }
+
+    // метрика асинхронного запроса записывается при завершении обработки, возможно уже после получения ответа клиентом
+    private DistributionSummary awaitStatements(String uri) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            DistributionSummary statements = meterRegistry.find("http.server.requests.sql.statements")
+                    .tag("uri", uri)
+                    .summary();
+            if (statements != null && statements.count() > 0) {
+                return statements;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Метрика для " + uri + " не записана");
+    }
+
+    @TestConfiguration
+    static class QueryStatsTestConfig {
+
+        @Bean
+        QueryStatsTestController queryStatsTestController(UserRepository userRepository) {
+            return new QueryStatsTestController(userRepository);
+        }
+    }
+
+    @RestController
+    static class QueryStatsTestController {
+        private final UserRepository userRepository;
+
+        QueryStatsTestController(UserRepository userRepository) {
+            this.userRepository = userRepository;
+        }
+
+        @GetMapping(SYNC_URI)
+        String sync() {
+            userRepository.count();
+            userRepository.count();
+            return "ok";
+        }
+
+        @GetMapping(STREAM_URI)
+        StreamingResponseBody stream() {
+            userRepository.count();
+            return out -> {
+                for (int i = 0; i < 3; i++) {
+                    userRepository.count();
+                }
+                out.write("ok".getBytes(StandardCharsets.UTF_8));
+            };
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.HeaderKey;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserService;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemRequestETagTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    private Long userId;
+    private Long requestId;
+    private String eTag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        userId = userService.save(user).getBody().getId();
+        ItemRequestDto itemRequestDto = ItemRequestDto.builder().description("Нужна дрель").build();
+        requestId = ((ItemRequestDto) itemRequestService.create(itemRequestDto, userId).getBody()).getId();
+        eTag = mockMvc.perform(get("/requests/{requestId}", requestId).header(HeaderKey.USER_KEY, userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void matchingETagReturnsNotModified() throws Exception {
+        mockMvc.perform(get("/requests/{requestId}", requestId)
+                        .header(HeaderKey.USER_KEY, userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void unknownUserWithMatchingETagReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/requests/{requestId}", requestId)
+                        .header(HeaderKey.USER_KEY, Long.MAX_VALUE)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotFound());
+    }
+}
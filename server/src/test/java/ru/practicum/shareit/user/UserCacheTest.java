@@ -0,0 +1,90 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void cachedUserIsNotChangedByUpdate() {
+        User user = createUser("Первое имя");
+        User cached = userCache.findById(user.getId()).get();
+
+        userService.update(user.getId(), getUpdate("Второе имя"));
+
+        assertThat(cached.getName()).isEqualTo("Первое имя");
+        assertThat(userCache.findById(user.getId()).get().getName()).isEqualTo("Второе имя");
+    }
+
+    @Test
+    void rolledBackUpdateDoesNotStayInCache() {
+        // пользователь попадает в кэш внутри той же транзакции, в которой его изменяют
+        User user = createUser("Первое имя");
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.update(user.getId(), getUpdate("Второе имя"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(userCache.findById(user.getId()).get().getName()).isEqualTo("Первое имя");
+    }
+
+    @Test
+    void userLoadedBeforeConcurrentUpdateIsNotCached() {
+        UserRepository userRepository = mock(UserRepository.class);
+        CacheManager cacheManager = new ConcurrentMapCacheManager(UserCache.CACHE_NAME);
+        UserCache cache = new UserCache();
+        cache.setUserRepository(userRepository);
+        cache.setCacheManager(cacheManager);
+        // старая строка уже прочитана, а изменение фиксируется и сбрасывает кэш до записи прочитанной копии
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            cache.evict(1L);
+            return Optional.of(getUser("Первое имя"));
+        }).thenReturn(Optional.of(getUser("Второе имя")));
+
+        cache.findById(1L);
+
+        assertThat(cacheManager.getCache(UserCache.CACHE_NAME).get(1L)).isNull();
+        assertThat(cache.findById(1L).get().getName()).isEqualTo("Второе имя");
+    }
+
+    private User getUser(String name) {
+        User user = new User();
+        user.setId(1L);
+        user.setName(name);
+        user.setEmail("user@mail.ru");
+        return user;
+    }
+
+    private User createUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userService.save(user).getBody();
+    }
+
+    private User getUpdate(String name) {
+        User update = new User();
+        update.setName(name);
+        return update;
+    }
+}